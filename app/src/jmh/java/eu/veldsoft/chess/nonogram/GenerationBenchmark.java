@@ -0,0 +1,80 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ElitisticListPopulation;
+import org.apache.commons.math3.genetics.GeneticAlgorithm;
+import org.apache.commons.math3.genetics.Population;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * One full generation of the genetic algorithm, evaluation of all offspring included, from a fresh random population.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+	@Param({ "8", "16", "32", "64", "128", "Icon01.bin", "Icon17.bin" })
+	public String image;
+
+	@Param({ "0.05", "0.1", "0.2" })
+	public double density;
+
+	@Param({ "INCREMENTAL", "REFERENCE", "BITBOARD" })
+	public String engine;
+
+	private AttackTable table;
+
+	private GeneticAlgorithm algorithm;
+
+	private Population population;
+
+	@Setup(Level.Trial)
+	public void trial() throws IOException {
+		RandomStreams.seed(HotPathBenchmark.SEED);
+		RandomStreams.use(RandomStreams.split());
+		GeneticAlgorithm.setRandomGenerator(RandomStreams.THREAD);
+		App.engine = Engine.valueOf(engine);
+
+		int[][] pixels = HotPathBenchmark.image(image);
+		App.steps(App.size(pixels));
+		table = new AttackTable(pixels);
+		algorithm = App.algorithm(table, null);
+	}
+
+	@Setup(Level.Invocation)
+	public void invocation() {
+		List<Chromosome> chromosomes = new ArrayList<>();
+		for (int i = 0; i < 83; i++) {
+			chromosomes.add(new CellChromosome(App.randomOnly(table.image, density), table));
+		}
+		population = new ElitisticListPopulation(chromosomes, chromosomes.size() * 2, 0.05);
+	}
+
+	@Benchmark
+	public double generation() {
+		double sum = 0;
+		for (Chromosome chromosome : algorithm.nextGeneration(population)) {
+			sum += chromosome.getFitness();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,108 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Microbenchmarks of the hot paths on synthetic square images and on sample icons, at several piece densities.
+ * Synthetic images are given by their side, sample icons by their file name in the doc directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+	static final long SEED = 0L;
+
+	@Param({ "8", "16", "32", "64", "128", "Icon01.bin", "Icon17.bin" })
+	public String image;
+
+	@Param({ "0.05", "0.1", "0.2" })
+	public double density;
+
+	private AttackTable table;
+
+	private byte[] genome;
+
+	private int[] counters;
+
+	static int[][] image(String name) throws IOException {
+		if (name.endsWith(".bin") == true) {
+			return App.load(new File("doc", name).getPath());
+		}
+
+		int size = Integer.parseInt(name);
+		Random random = new Random(SEED);
+		int[][] image = new int[size][size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				image[i][j] = random.nextDouble() < 0.3D ? 1 : 0;
+			}
+		}
+
+		return image;
+	}
+
+	@Setup
+	public void trial() throws IOException {
+		RandomStreams.seed(SEED);
+		RandomStreams.use(RandomStreams.split());
+
+		int[][] pixels = image(image);
+		App.steps(App.size(pixels));
+		table = new AttackTable(pixels);
+		genome = App.randomOnly(pixels, density);
+		counters = App.beaten(genome, table);
+	}
+
+	@Benchmark
+	public int[] beaten() {
+		return App.beaten(genome, table);
+	}
+
+	@Benchmark
+	public int fitness() {
+		return App.fitness(genome, table);
+	}
+
+	@Benchmark
+	public int scalarScore() {
+		return Scoring.score(genome, table.pixels, counters, 0, genome.length);
+	}
+
+	/* Without wide enough vectors the kernel is not used, and the scalar loop is measured instead. */
+	@Benchmark
+	public int vectorScore() {
+		if (VectorScoring.SUPPORTED == false) {
+			return Scoring.score(genome, table.pixels, counters, 0, genome.length);
+		}
+
+		return VectorScoring.score(genome, table.pixels, counters, genome.length);
+	}
+
+	@Benchmark
+	public byte[] removeHarmful() {
+		return App.removeHarmful(genome, table);
+	}
+
+	@Benchmark
+	public byte[] randomSearch() {
+		return App.randomSearch(table, 1_000);
+	}
+}
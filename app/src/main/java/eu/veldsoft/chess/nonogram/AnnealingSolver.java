@@ -0,0 +1,53 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Simulated annealing over single cell moves. A move which does not lower the score is always accepted, a worse one
+ * with the Metropolis probability. The temperature falls from --temperature to --frozen over the budget, geometric
+ * or linear in the progress as chosen by --cooling, and it is updated once in a batch of moves.
+ */
+class AnnealingSolver extends TrajectorySolver {
+	@Override
+	void search(Options options, RandomGenerator random) {
+		double hot = options.get("temperature", 200D);
+		double frozen = options.get("frozen", 1D);
+		boolean linear = options.get("cooling", "geometric").equals("linear");
+
+		double temperature = hot;
+		while (running() == true) {
+			if (moves % BATCH == 0) {
+				double progress = progress();
+				temperature = linear == true ? hot + (frozen - hot) * progress
+						: hot * Math.pow(frozen / hot, progress);
+			}
+			moves++;
+
+			int k = zeros[random.nextInt(zeros.length)];
+			byte previous = evaluator.get(k);
+			byte value = VALUES[random.nextInt(VALUES.length - 1)];
+			if (value == previous) {
+				value = VALUES[VALUES.length - 1];
+			}
+			if (useful(k, value) == false) {
+				continue;
+			}
+
+			int score = evaluator.score();
+			evaluator.set(k, value);
+			int delta = evaluator.score() - score;
+
+			if (harmful() == false && delta >= 0) {
+				if (delta > 0) {
+					record();
+				}
+				continue;
+			}
+			if (harmful() == false && random.nextDouble() < Math.exp(delta / temperature)) {
+				continue;
+			}
+
+			evaluator.set(k, previous);
+		}
+	}
+}
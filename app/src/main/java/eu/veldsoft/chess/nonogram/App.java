@@ -1,31 +1,33 @@
 package eu.veldsoft.chess.nonogram;
 
-import java.io.BufferedReader;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
-import org.apache.commons.math3.exception.MathIllegalArgumentException;
-import org.apache.commons.math3.genetics.AbstractListChromosome;
 import org.apache.commons.math3.genetics.Chromosome;
 import org.apache.commons.math3.genetics.ElitisticListPopulation;
-import org.apache.commons.math3.genetics.FixedGenerationCount;
 import org.apache.commons.math3.genetics.GeneticAlgorithm;
-import org.apache.commons.math3.genetics.InvalidRepresentationException;
-import org.apache.commons.math3.genetics.MutationPolicy;
+import org.apache.commons.math3.genetics.Population;
 import org.apache.commons.math3.genetics.TournamentSelection;
-import org.apache.commons.math3.genetics.UniformCrossover;
+import org.apache.commons.math3.random.RandomGenerator;
 
 public class App {
 	private static final int GENERATIONS = 10_000;
 	private static final int POPULATION = 83;
 
-	private static enum Cell {
+	static final int BAD = -150;
+	static final int GOOD = +50;
+	static final int BEST = +100;
+	static final int UNDERBEATEN = +10;
+
+	static enum Cell {
 		EMPTY(' '), OCCUPIED('*'), KING('K'), QUEEN('Q'), ROOK('R'), BISHOP('B'), KNIGHT('N');
 
 		static class Step {
@@ -46,7 +48,7 @@ public class App {
 
 		private char symbol;
 
-		private List<List<Step>> steps = new ArrayList<>();
+		private volatile List<List<Step>> steps = new ArrayList<>();
 
 		Cell(char symbol) {
 			this.symbol = symbol;
@@ -69,126 +71,135 @@ public class App {
 		}
 	}
 
-	private static final Random PRNG = new Random();
+	static final Cell CELLS[] = Cell.values();
+
+	static final Cell PIECES_ARRAY[] = { Cell.KING, Cell.QUEEN, Cell.ROOK, Cell.BISHOP, Cell.KNIGHT, };
 
-	private static final Cell PIECES_ARRAY[] = { Cell.KING, Cell.QUEEN, Cell.ROOK, Cell.BISHOP, Cell.KNIGHT, };
+	static final List<Cell> PIECES_LIST = Arrays.asList(PIECES_ARRAY);
 
-	private static final List<Cell> PIECES_LIST = Arrays.asList(PIECES_ARRAY);
+	static final byte EMPTY = (byte) Cell.EMPTY.ordinal();
+
+	static final byte OCCUPIED = (byte) Cell.OCCUPIED.ordinal();
 
 	private static int[][] image = { {} };
 
-	private static Cell[][] board(List<Cell> representation, int[][] image) {
-		Cell[][] board = new Cell[image.length][];
+	private static int stepsSize = 0;
 
-		for (int i = 0, k = 0; i < image.length; i++) {
-			board[i] = new Cell[image[i].length];
-			for (int j = 0; j < image[i].length; j++, k++) {
-				board[i][j] = representation.get(k);
-			}
-		}
+	static Engine engine = Engine.INCREMENTAL;
+
+	/*
+	 * Mutation which repairs deficits of the board instead of changing a uniformly random cell. It is opt-in, because
+	 * it builds the evaluator of every parent in the serial breeding loop.
+	 */
+	static boolean guided = false;
 
-		return board;
+	/* Initial population built by the randomized greedy cover instead of random boards, with --seeding=greedy. */
+	static boolean greedy = false;
+
+	/* Budget of tried moves of the local search of every offspring, zero disables the memetic mode. */
+	static int memetic = 0;
+
+	/* Entries of the fitness cache of every attack table, zero disables it. */
+	static int cacheSize = 1 << 16;
+
+	/* Receiver of the measurements of every generation, if any. */
+	static Metrics.Listener metrics = null;
+
+	/* Checkpoints of the single image run, not of the batch or tiled ones. */
+	static Checkpoint checkpoint = null;
+
+	static boolean isPiece(byte cell) {
+		return cell != EMPTY && cell != OCCUPIED;
 	}
 
-	private static int[][] beaten(List<Cell> representation, int[][] image) {
-		int[][] counters = new int[image.length][];
+	static int cells(int[][] image) {
+		int size = 0;
 		for (int i = 0; i < image.length; i++) {
-			counters[i] = new int[image[i].length];
-			for (int j = 0; j < image[i].length; j++) {
-				counters[i][j] = 0;
-			}
+			size += image[i].length;
+		}
+		return size;
+	}
+
+	static int[] offsets(int[][] image) {
+		int[] offsets = new int[image.length];
+		for (int i = 0, k = 0; i < image.length; k += image[i].length, i++) {
+			offsets[i] = k;
 		}
+		return offsets;
+	}
 
-		Cell[][] board = board(representation, image);
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[i].length; j++) {
-				if (board[i][j] == Cell.EMPTY) {
-					continue;
-				}
-				if (board[i][j] == Cell.OCCUPIED) {
-					continue;
-				}
+	static int[] beaten(byte[] genome, AttackTable table) {
+		return beaten(genome, table, new int[genome.length]);
+	}
 
-				for (List<Cell.Step> directions : board[i][j].steps()) {
-					for (Cell.Step step : directions) {
-						if (i + step.dx < 0) {
-							continue;
-						}
-						if (i + step.dx >= counters.length) {
-							continue;
-						}
-						if (j + step.dy < 0) {
-							continue;
-						}
-						if (j + step.dy >= counters[i].length) {
-							continue;
-						}
+	/* Count into the given counters, which must be zero at the length of the genome. */
+	static int[] beaten(byte[] genome, AttackTable table, int[] counters) {
+		Events.Beaten event = new Events.Beaten();
+		event.begin();
 
-						/* Stop direction of piece influence if it hits another piece. */
-						if (PIECES_LIST.contains(board[i + step.dx][j + step.dy])) {
-							break;
-						}
+		for (int k = 0; k < genome.length; k++) {
+			if (isPiece(genome[k]) == false) {
+				continue;
+			}
 
-						counters[i + step.dx][j + step.dy]++;
+			int[] rays = table.rays(k, genome[k]);
+			for (int r = 0; r < rays.length; r += rays[r] + 1) {
+				for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+					int target = rays[t];
 
-						/* Stop direction of piece influence if it hits an occupied cell. */
-						if (board[i + step.dx][j + step.dy] == Cell.OCCUPIED) {
-							break;
-						}
+					/* Stop direction of piece influence if it hits another piece. */
+					if (isPiece(genome[target]) == true) {
+						break;
+					}
+
+					counters[target]++;
+
+					/* Stop direction of piece influence if it hits an occupied cell. */
+					if (genome[target] == OCCUPIED) {
+						break;
 					}
 				}
 			}
 		}
 
+		event.end();
+		if (event.shouldCommit() == true) {
+			event.cells = genome.length;
+			event.pieces = Events.pieces(genome);
+			event.commit();
+		}
+
 		return counters;
 	}
 
-	private static int fitness(List<Cell> representation, int[][] image) {
-		int[][] counters = beaten(representation, image);
-		Cell[][] board = board(representation, image);
-
+	static int score(Cell cell, int pixel, int counter) {
 		int score = 0;
-		final int BAD = -150;
-		final int GOOD = +50;
-		final int BEST = +100;
-		final int UNDERBEATEN = +10;
-		for (int i = 0; i < counters.length; i++) {
-			for (int j = 0; j < counters[i].length; j++) {
-				if (counters[i][j] == 2 && board[i][j] == Cell.OCCUPIED) {
-					score += BEST;
-				}
-				if (counters[i][j] > 2 && board[i][j] == Cell.OCCUPIED) {
-					score += GOOD;
-				}
-				if (counters[i][j] < 2 && board[i][j] == Cell.OCCUPIED) {
-					score += UNDERBEATEN;
-				}
-				if (counters[i][j] > 1 && image[i][j] == 0) {
-					score += BAD;
-				}
-			}
+
+		if (counter == 2 && cell == Cell.OCCUPIED) {
+			score += BEST;
+		}
+		if (counter > 2 && cell == Cell.OCCUPIED) {
+			score += GOOD;
+		}
+		if (counter < 2 && cell == Cell.OCCUPIED) {
+			score += UNDERBEATEN;
+		}
+		if (counter > 1 && pixel == 0) {
+			score += BAD;
 		}
 
 		return score;
 	}
 
-	private static boolean hitting(int x, int y, Cell piece, int[][] image) {
-		for (List<Cell.Step> directions : piece.steps()) {
-			for (Cell.Step step : directions) {
-				if (x + step.dx < 0) {
-					continue;
-				}
-				if (x + step.dx >= image.length) {
-					continue;
-				}
-				if (y + step.dy < 0) {
-					continue;
-				}
-				if (y + step.dy >= image[x].length) {
-					continue;
-				}
+	static int fitness(byte[] genome, AttackTable table) {
+		return Scoring.fitness(genome, table);
+	}
 
-				if (image[x + step.dx][y + step.dy] == 1) {
+	static boolean hitting(int index, Cell piece, AttackTable table) {
+		int[] rays = table.rays(index, piece);
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+				if (table.pixels[rays[t]] == 1) {
 					return true;
 				}
 			}
@@ -197,248 +208,259 @@ public class App {
 		return false;
 	}
 
-	private static boolean hitting(int index, Cell cell, int[][] image2) {
+	static byte[] emptyOnly(int[][] image) {
+		byte[] genome = new byte[cells(image)];
+
 		for (int i = 0, k = 0; i < image.length; i++) {
 			for (int j = 0; j < image[i].length; j++, k++) {
-				if (index == k) {
-					return hitting(i, j, cell, image);
-				}
-			}
-		}
-
-		return false;
-	}
-
-	private static List<Cell> emptyOnly(int[][] image) {
-		List<Cell> representation = new ArrayList<>();
-
-		for (int i = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++) {
 				if (image[i][j] == 1) {
-					representation.add(Cell.OCCUPIED);
+					genome[k] = OCCUPIED;
 				} else {
-					representation.add(Cell.EMPTY);
+					genome[k] = EMPTY;
 				}
 			}
 		}
 
-		return representation;
+		return genome;
 	}
 
-	private static List<Cell> randomOnly(int[][] image, double threshold) {
-		List<Cell> representation = new ArrayList<>();
+	static byte[] randomOnly(int[][] image, double threshold) {
+		byte[] genome = new byte[cells(image)];
 
-		for (int i = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++) {
+		RandomGenerator random = RandomStreams.current();
+		for (int i = 0, k = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++, k++) {
 				if (image[i][j] == 1) {
-					representation.add(Cell.OCCUPIED);
+					genome[k] = OCCUPIED;
 				} else {
-					Cell piece = PIECES_ARRAY[PRNG.nextInt(PIECES_ARRAY.length)];
-					if (PRNG.nextDouble() < threshold) {
-						representation.add(piece);
+					Cell piece = PIECES_ARRAY[random.nextInt(PIECES_ARRAY.length)];
+					if (random.nextDouble() < threshold) {
+						genome[k] = (byte) piece.ordinal();
 					} else {
-						representation.add(Cell.EMPTY);
+						genome[k] = EMPTY;
 					}
 				}
 			}
 		}
 
-		return representation;
+		return genome;
 	}
 
-	private static List<Cell> randomSearch(int[][] image, int limit) {
-		List<Cell> representation = new ArrayList<>();
+	static byte[] randomSearch(AttackTable table, int limit) {
+		Events.RandomSearch event = new Events.RandomSearch();
+		event.begin();
 
-		for (int i = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++) {
-				if (image[i][j] == 1) {
-					representation.add(Cell.OCCUPIED);
-				} else {
-					representation.add(Cell.EMPTY);
-				}
+		Evaluator evaluator = new Evaluator(emptyOnly(table.image), table);
+
+		IndexedSet free = new IndexedSet(evaluator.size());
+		for (int k = 0; k < evaluator.size(); k++) {
+			if (evaluator.get(k) == EMPTY) {
+				free.add(k);
 			}
 		}
 
-		for (int l = 0; l < limit && unbeaten(representation, image) > 0; l++) {
-			int index = -1;
-			do {
-				index = PRNG.nextInt(representation.size());
-			} while (representation.get(index) != Cell.EMPTY);
+		BitSet touched = new BitSet(evaluator.size());
+		BitSet pending = new BitSet(evaluator.size());
+		RandomGenerator random = RandomStreams.current();
+		int attempts = 0;
+		int placed = 0;
+		for (int l = 0; l < limit && evaluator.unbeaten() > 0 && free.size() > 0; l++, attempts++) {
+			int index = free.random(random);
 
-			Cell cell = PIECES_ARRAY[PRNG.nextInt(PIECES_ARRAY.length)];
-			representation.set(index, cell);
-			representation = removeUnused(representation, image);
-			representation = removeHarmful(representation, image);
-		}
+			Cell cell = PIECES_ARRAY[random.nextInt(PIECES_ARRAY.length)];
 
-		return representation;
-	}
+			/* Removing unused pieces depends only on the image, so only the new piece can be unused. */
+			if (hitting(index, cell, table) == false) {
+				continue;
+			}
 
-	private static List<Cell> removeUnused(List<Cell> representation, int[][] image) {
-		List<Cell> result = new ArrayList<>();
-		Cell[][] board = board(representation, image);
+			evaluator.touched(touched);
+			evaluator.set(index, (byte) cell.ordinal());
+			evaluator.touched(null);
+			free.remove(index);
+			placed++;
 
-		for (int i = 0, k = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++, k++) {
-				if (PIECES_LIST.contains(board[i][j]) == true && hitting(i, j, board[i][j], image) == false) {
-					result.add(Cell.EMPTY);
-				} else {
-					result.add(representation.get(k));
-				}
-			}
+			/* Only the new piece and the pieces around cells it over-attacked can have become harmful. */
+			pending.set(index);
+			covering(evaluator, touched, pending, table);
+			touched.clear();
+			removeHarmful(evaluator, pending, table, free);
 		}
 
-		return result;
-	}
-
-	private static List<Cell> removeHarmful(List<Cell> representation, int[][] image) {
-		List<Cell> result = new ArrayList<>(representation);
+		event.end();
+		if (event.shouldCommit() == true) {
+			event.cells = evaluator.size();
+			event.attempts = attempts;
+			event.placed = placed;
+			event.pieces = Events.pieces(evaluator.genome());
+			event.unbeaten = evaluator.unbeaten();
+			event.commit();
+		}
 
-		int[][] counters = beaten(result, image);
-		for (int i = 0, k = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++, k++) {
-				boolean isHarmful = false;
+		return evaluator.genome().clone();
+	}
 
-				done: for (List<Cell.Step> directions : result.get(k).steps()) {
-					for (Cell.Step step : directions) {
-						if (i + step.dx < 0) {
-							continue;
-						}
-						if (i + step.dx >= counters.length) {
-							continue;
-						}
-						if (j + step.dy < 0) {
-							continue;
-						}
-						if (j + step.dy >= counters[i].length) {
-							continue;
-						}
+	static byte[] removeUnused(byte[] genome, AttackTable table) {
+		Events.RemoveUnused event = new Events.RemoveUnused();
+		event.begin();
 
-						if (image[i + step.dx][j + step.dy] == 0 && counters[i + step.dx][j + step.dy] > 1) {
-							isHarmful = true;
-							break done;
-						}
-					}
-				}
+		byte[] result = genome.clone();
 
-				if (isHarmful) {
-					result.set(k, Cell.EMPTY);
-					counters = beaten(result, image);
-					i = 0;
-					j = 0;
-					k = 0;
-				}
+		int removed = 0;
+		for (int k = 0; k < result.length; k++) {
+			if (isPiece(result[k]) == true && hitting(k, CELLS[result[k]], table) == false) {
+				result[k] = EMPTY;
+				removed++;
 			}
 		}
 
+		event.end();
+		if (event.shouldCommit() == true) {
+			event.cells = result.length;
+			event.pieces = Events.pieces(genome);
+			event.removed = removed;
+			event.commit();
+		}
+
 		return result;
 	}
 
-	private static void print(PrintStream out, boolean debug, List<Cell> representation, int[][] image) {
-		int[][] counters = beaten(representation, image);
-		for (int i = 0, k = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++, k++) {
-				if (debug == true) {
-					out.print("[" + representation.get(k).symbol() + ""
-							+ (counters[i][j] > 1 ? String.format("%2d", counters[i][j]) : "  ") + "]");
-				} else {
-					out.print(representation.get(k).symbol());
+	static boolean harmful(int index, Evaluator evaluator, AttackTable table) {
+		int[] rays = table.rays(index, evaluator.get(index));
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+				if (table.pixels[rays[t]] == 0 && evaluator.counter(rays[t]) > 1) {
+					return true;
 				}
 			}
-			out.println();
 		}
-	}
 
-	private static int[][] dice(int[][] image) {
-		int[][] board = new int[image.length][];
-		for (int i = 0; i < image.length; i++) {
-			board[i] = new int[image[i].length];
-			for (int j = 0; j < image[i].length; j++) {
-				board[i][j] = 0;
+		return false;
+	}
 
-				if (image[i][j] == 1) {
-					continue;
-				}
+	/* Mark the pieces whose rays cover a touched zero pixel which is attacked more than once. */
+	static void covering(Evaluator evaluator, BitSet touched, BitSet pending, AttackTable table) {
+		for (int t = touched.nextSetBit(0); t >= 0; t = touched.nextSetBit(t + 1)) {
+			if (table.pixels[t] != 0 || evaluator.counter(t) <= 1) {
+				continue;
+			}
 
-				for (int k = -1; k <= +1; k++) {
-					for (int l = -1; l <= +1; l++) {
-						if (k == 0 && l == 0) {
-							continue;
-						}
-						if (i + k < 0) {
-							continue;
-						}
-						if (j + l < 0) {
-							continue;
-						}
-						if (i + k >= image.length) {
-							continue;
+			/* Moves are symmetric, so the pieces covering the cell are on the rays of the cell itself. */
+			for (Cell piece : PIECES_ARRAY) {
+				int[] rays = table.rays(t, piece);
+				for (int r = 0; r < rays.length; r += rays[r] + 1) {
+					for (int q = r + 1, end = r + rays[r]; q <= end; q++) {
+						if (evaluator.get(rays[q]) == piece.ordinal()) {
+							pending.set(rays[q]);
 						}
-						if (j + l >= image[i].length) {
-							continue;
-						}
-
-						board[i][j] += image[i + k][j + l];
 					}
 				}
+			}
+		}
+	}
 
-				if (board[i][j] > 6) {
-					board[i][j] = 0;
-				}
+	/*
+	 * Remove the harmful pieces among the pending ones, lowest index first. Removing a piece changes only a few
+	 * counters, and only the pieces whose rays cover a zero pixel that became over-attacked are examined again. The
+	 * cells of removed pieces are added to the free set, when one is given.
+	 */
+	static void removeHarmful(Evaluator evaluator, BitSet pending, AttackTable table, IndexedSet free) {
+		Events.RemoveHarmful event = new Events.RemoveHarmful();
+		event.begin();
+
+		BitSet touched = new BitSet(evaluator.size());
+		evaluator.touched(touched);
+
+		int examined = 0;
+		int removed = 0;
+		int cells = 0;
+		for (int k = pending.nextSetBit(0); k >= 0; k = pending.nextSetBit(0)) {
+			pending.clear(k);
+			examined++;
+
+			if (isPiece(evaluator.get(k)) == false) {
+				continue;
+			}
+			if (harmful(k, evaluator, table) == false) {
+				continue;
+			}
+
+			evaluator.set(k, EMPTY);
+			if (free != null) {
+				free.add(k);
+			}
+			removed++;
+
+			/* Counting the touched cells is not free, so it is done only while the event is recorded. */
+			if (event.isEnabled() == true) {
+				cells += touched.cardinality();
 			}
+
+			covering(evaluator, touched, pending, table);
+			touched.clear();
 		}
 
-		return board;
+		evaluator.touched(null);
+
+		event.end();
+		if (event.shouldCommit() == true) {
+			event.cells = evaluator.size();
+			event.examined = examined;
+			event.removed = removed;
+			event.touched = cells;
+			event.commit();
+		}
 	}
 
-	private static int unbeaten(List<Cell> representation, int[][] image) {
-		int[][] counters = beaten(representation, image);
+	static byte[] removeHarmful(byte[] genome, AttackTable table) {
+		Evaluator evaluator = new Evaluator(genome, table);
 
-		int sum = 0;
-		for (int i = 0; i < image.length; i++) {
-			for (int j = 0; j < image[i].length; j++) {
-				if (image[i][j] == 1 && counters[i][j] < 2) {
-					sum++;
-				}
+		BitSet pending = new BitSet(genome.length);
+		for (int k = 0; k < genome.length; k++) {
+			if (isPiece(genome[k]) == true) {
+				pending.set(k);
 			}
 		}
 
-		return sum;
+		removeHarmful(evaluator, pending, table, null);
+
+		return evaluator.genome().clone();
 	}
 
-	public static void main(String[] args) throws IOException {
-//		args = new String[] { "C:\\Users\\Todor Balabanov\\Desktop\\Icons-32x32-03-May-2024\\01.bin",
-//				"C:\\Users\\Todor Balabanov\\Desktop\\Icons-32x32-03-May-2024\\01.chess" };
-//
-		List<int[]> rows = new ArrayList<>();
-		try (BufferedReader reader = new BufferedReader(new FileReader(args[0]))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				int[] row = new int[line.length()];
-				for (int i = 0; i < line.length(); i++) {
-					row[i] = Character.getNumericValue(line.charAt(i));
+	static void print(PrintStream out, boolean debug, byte[] genome, AttackTable table) {
+		int[] counters = beaten(genome, table);
+		for (int i = 0, k = 0; i < table.image.length; i++) {
+			for (int j = 0; j < table.image[i].length; j++, k++) {
+				if (debug == true) {
+					out.print("[" + CELLS[genome[k]].symbol() + ""
+							+ (counters[k] > 1 ? String.format("%2d", counters[k]) : "  ") + "]");
+				} else {
+					out.print(CELLS[genome[k]].symbol());
 				}
-				rows.add(row);
 			}
+			out.println();
 		}
-		int size = rows.size();
-		image = new int[rows.size()][];
-		for (int i = 0; i < rows.size(); i++) {
-			image[i] = rows.get(i);
-			if (image[i].length > size) {
-				size = image[i].length;
+	}
+
+	static int unbeaten(byte[] genome, AttackTable table) {
+		int[] counters = beaten(genome, table);
+
+		int sum = 0;
+		for (int k = 0; k < genome.length; k++) {
+			if (table.pixels[k] == 1 && counters[k] < 2) {
+				sum++;
 			}
 		}
 
-		/* Dice brute force. */ {
-//			int[][] board = dice(image);
-//			try (PrintStream out = new PrintStream(new FileOutputStream(args[1]))) {
-//				out.println(Arrays.deepToString(board).replace("],", "\n").replace("[", "").replace("]", "")
-//						.replace(" ", "").replace(",", ""));
-//				out.close();
-//			}
-//			System.exit(0);
+		return sum;
+	}
+
+	/* Build the piece moves, with rays long enough for images of the given size. The moves only ever grow. */
+	static synchronized void steps(int size) {
+		if (size <= stepsSize) {
+			return;
 		}
+		stepsSize = size;
 
 		List<Cell.Step> direction = null;
 		List<List<Cell.Step>> steps = null;
@@ -622,87 +644,282 @@ public class App {
 		steps.add(direction);
 
 		Cell.QUEEN.steps(steps);
+	}
 
-		/* Only random search try. */ {
-//			List<Cell> representation = randomSearch(image, 100_000);
-//			print(System.out, true, representation, image);
-//			Cell.EMPTY.symbol('.');
-//			Cell.OCCUPIED.symbol('.');
-//			try (PrintStream out = new PrintStream(new FileOutputStream(args[1]))) {
-//				print(out, false, representation, image);
-//				out.close();
-//			}
-//			System.exit(0);
-		}
+	static int[][] load(String file) throws IOException {
+		return Images.load(Paths.get(file)).image();
+	}
 
-		class CellChromosome extends AbstractListChromosome<Cell> {
-			@Override
-			protected void checkValidity(List<Cell> representation) throws InvalidRepresentationException {
+	static int size(int[][] image) {
+		int size = image.length;
+		for (int i = 0; i < image.length; i++) {
+			if (image[i].length > size) {
+				size = image[i].length;
 			}
+		}
 
-			List<Cell> representation() {
-				return getRepresentation();
-			}
+		return size;
+	}
 
-			public CellChromosome(List<Cell> representation) {
-				super(representation);
+	static ParallelGeneticAlgorithm algorithm(AttackTable table, ForkJoinPool pool) {
+		ParallelGeneticAlgorithm algorithm = new ParallelGeneticAlgorithm(new CellCrossover(table), 0.9,
+				guided == true ? new GuidedMutation(table) : new CellMutation(table), 0.1, new TournamentSelection(5),
+				pool);
+		if (metrics != null) {
+			algorithm.listen(metrics);
+		}
+		if (memetic > 0) {
+			algorithm.memetic(new LocalSearch(table, memetic));
+		}
+
+		return algorithm;
+	}
+
+	/*
+	 * Greedy seeds are built in parallel on the pool, each from its own stream split in order, so the threads do not
+	 * matter. Without a pool they are built in the calling thread.
+	 */
+	static Population population(AttackTable table, ForkJoinPool pool) {
+		List<Chromosome> chromosomes = new ArrayList<Chromosome>();
+
+		if (greedy == true) {
+			RandomStreams.Stream[] streams = new RandomStreams.Stream[POPULATION];
+			for (int i = 0; i < POPULATION; i++) {
+				streams[i] = RandomStreams.current().split();
 			}
 
-			@Override
-			public CellChromosome newFixedLengthChromosome(List<Cell> representation) {
-				// return new CellChromosome(emptyOnly(image));
-				// return new CellChromosome(randomOnly(image, 0.01));
-				// return new CellChromosome(randomSearch(image, 10_000));
-				// return new CellChromosome(removeHarmful(representation, image));
-				// return new CellChromosome(removeHarmful(randomOnly(image, 0.1), image));
-				return new CellChromosome(new ArrayList<>(representation));
+			byte[][] genomes = new byte[POPULATION][];
+			if (pool == null) {
+				for (int i = 0; i < POPULATION; i++) {
+					genomes[i] = GreedyCover.build(table, streams[i]);
+				}
+			} else {
+				pool.submit(() -> IntStream.range(0, POPULATION).parallel().forEach(i -> {
+					genomes[i] = GreedyCover.build(table, streams[i]);
+				})).join();
+			}
+			for (byte[] genome : genomes) {
+				chromosomes.add(new CellChromosome(genome, table));
 			}
 
-			@Override
-			public double fitness() {
-				return App.fitness(getRepresentation(), image);
+			return new ElitisticListPopulation(chromosomes, chromosomes.size() * 2, 0.05);
+		}
+
+		chromosomes.add(new CellChromosome(randomSearch(table, 100_000), table));
+		for (int i = 1; i < POPULATION; i++) {
+			byte[] genome = randomOnly(table.image, 0.09);
+			chromosomes.add(new CellChromosome(genome, table));
+		}
+
+		return new ElitisticListPopulation(chromosomes, chromosomes.size() * 2, 0.05);
+	}
+
+	/* Fitness of a perfect covering: every one pixel attacked exactly twice, no zero pixel attacked twice. */
+	static int perfect(AttackTable table) {
+		int ones = 0;
+		for (int k = 0; k < table.size(); k++) {
+			ones += table.pixels[k];
+		}
+
+		return ones * BEST;
+	}
+
+	/*
+	 * The run ends at the generation limit or at a perfect covering. Stagnation, time and evaluation budgets are
+	 * optional, and they are combined with each other as any or all of them. A resumed run continues their counters
+	 * from the checkpoint.
+	 */
+	static Stopping stopping(AttackTable table, Options options) {
+		List<Stopping> budgets = new ArrayList<>();
+		if (options.has("stagnation") == true) {
+			budgets.add(Stopping.stagnation(options.get("stagnation", 0)));
+		}
+		if (options.has("time") == true) {
+			budgets.add(Stopping.time(options.get("time", 0D)));
+		}
+		if (options.has("evaluations") == true) {
+			budgets.add(Stopping.evaluations(table, options.get("evaluations", 0L)));
+		}
+
+		List<Stopping> conditions = new ArrayList<>();
+		conditions.add(Stopping.generations(options.get("generations", GENERATIONS)));
+		conditions.add(Stopping.target(options.get("target", (double) perfect(table))));
+		if (budgets.isEmpty() == false) {
+			Stopping[] array = budgets.toArray(new Stopping[budgets.size()]);
+			conditions.add(options.get("stop", "any").equals("all") == true ? Stopping.all(array)
+					: Stopping.any(array));
+		}
+
+		return Stopping.any(conditions.toArray(new Stopping[conditions.size()]));
+	}
+
+	static Solver solver(String name) {
+		switch (name) {
+		case "ga":
+			return new GeneticSolver();
+		case "annealing":
+			return new AnnealingSolver();
+		case "tabu":
+			return new TabuSolver();
+		case "exact":
+			return new ExactSolver.Adapter();
+		default:
+			throw new IllegalArgumentException("Unknown solver " + name + ".");
+		}
+	}
+
+	/* Search a board for the image, on the pool when given, and repair the result. */
+	static byte[] solve(AttackTable table, Options options, ForkJoinPool pool) {
+		Solver solver = solver(options.get("solver", "ga"));
+		byte[] genome = solver.solve(table, options, pool);
+
+		/* A perfect covering is returned as it is, because the repair could break it. */
+		if (solver.perfect() == true) {
+			return genome;
+		}
+
+		genome = removeUnused(genome, table);
+		genome = removeHarmful(genome, table);
+
+		return genome;
+	}
+
+	public static void main(String[] args) throws IOException {
+//		args = new String[] { "C:\\Users\\Todor Balabanov\\Desktop\\Icons-32x32-03-May-2024\\01.bin",
+//				"C:\\Users\\Todor Balabanov\\Desktop\\Icons-32x32-03-May-2024\\01.chess" };
+//
+		Options options = new Options(args);
+
+		engine = Engine.valueOf(options.get("engine", engine.name()).toUpperCase());
+		cacheSize = options.get("cache", cacheSize);
+		guided = options.get("mutation", "uniform").equals("guided");
+		memetic = options.get("memetic", memetic);
+		greedy = options.get("seeding", "random").equals("greedy");
+
+		Metrics.Writer writer = null;
+		if (options.has("metrics") == true) {
+			writer = new Metrics.Writer(Paths.get(options.get("metrics", "")));
+			metrics = writer;
+		}
+		try {
+			run(options);
+		} finally {
+			if (writer != null) {
+				writer.close();
 			}
 		}
+	}
+
+	private static void run(Options options) throws IOException {
+		/* The same seed and number of threads give the same run. */
+		if (options.has("seed") == true) {
+			RandomStreams.seed(options.get("seed", 0L));
+		}
+		RandomStreams.use(RandomStreams.split());
+		GeneticAlgorithm.setRandomGenerator(RandomStreams.THREAD);
+
+		boolean dice = options.get("mode", "chess").equals("dice");
+
+		if (options.has("batch") == true && dice == true) {
+			new Batch(options.get("threads", Runtime.getRuntime().availableProcessors())).run(
+					Paths.get(options.get(0)), Paths.get(options.get(1)), ".dice", (input, output) -> {
+						Dice.write(Images.load(input), null, output);
+					});
+			return;
+		}
+
+		if (options.has("batch") == true) {
+			Cell.EMPTY.symbol('.');
+			Cell.OCCUPIED.symbol('.');
+			new Batch(options.get("threads", Runtime.getRuntime().availableProcessors())).run(
+					Paths.get(options.get(0)), Paths.get(options.get(1)), ".chess", (input, output) -> {
+						int[][] image = load(input.toString());
+						steps(size(image));
+						AttackTable table = new AttackTable(image);
+						byte[] genome = solve(table, options, null);
+						try (PrintStream out = new PrintStream(new FileOutputStream(output.toFile()))) {
+							print(out, false, genome, table);
+						}
+					});
+			return;
+		}
 
-		GeneticAlgorithm ga = new GeneticAlgorithm(new UniformCrossover<Cell>(0.5), 0.9, new MutationPolicy() {
-			@Override
-			public Chromosome mutate(Chromosome original) throws MathIllegalArgumentException {
-				List<Cell> representation = new ArrayList<>(((CellChromosome) original).representation());
-
-				int index = PRNG.nextInt(representation.size());
-				if (representation.get(index) != Cell.OCCUPIED) {
-					if (PRNG.nextDouble() < 0.5D) {
-						Cell cell = PIECES_ARRAY[PRNG.nextInt(PIECES_ARRAY.length)];
-						representation.set(index, cell);
-					} else {
-						representation.set(index, Cell.EMPTY);
-					}
-				}
+		/* Large dice images stay packed, one bit per pixel. */
+		if (dice == true) {
+			ForkJoinPool pool = new ForkJoinPool(options.get("threads", Runtime.getRuntime().availableProcessors()));
+			Dice.write(Images.load(Paths.get(options.get(0))), pool, Paths.get(options.get(1)));
+			pool.shutdown();
+			return;
+		}
 
-				return new CellChromosome(representation);
+		/* Conversion of any supported image to the packed binary format. */
+		if (options.get("mode", "chess").equals("pack") == true) {
+			Images.save(Images.load(Paths.get(options.get(0))), Paths.get(options.get(1)));
+			return;
+		}
+
+		image = load(options.get(0));
+
+		/* Large images are solved tile by tile, without an attack table of the whole board. */
+		if (options.has("tile") == true) {
+			ForkJoinPool pool = new ForkJoinPool(options.get("threads", Runtime.getRuntime().availableProcessors()));
+			TiledSolver solver = new TiledSolver(image, options.get("tile", 32), options.get("overlap", 4));
+			solver.solve(options, pool);
+			pool.shutdown();
+
+			System.out.println(solver.fitness());
+			Cell.EMPTY.symbol('.');
+			Cell.OCCUPIED.symbol('.');
+			try (PrintStream out = new PrintStream(new FileOutputStream(options.get(1)))) {
+				solver.print(out);
 			}
-		}, 0.1, new TournamentSelection(5));
+			return;
+		}
 
-		List<Chromosome> chromosomes = new ArrayList<Chromosome>();
-		chromosomes.add(new CellChromosome(randomSearch(image, 100_000)));
-		for (int i = 1; i < POPULATION; i++) {
-			List<Cell> representation = randomOnly(image, 0.09);
-			chromosomes.add(new CellChromosome(representation));
+		steps(size(image));
+
+		AttackTable table = new AttackTable(image);
+
+		if (engine == Engine.BITBOARD && table.bitboard == null) {
+			System.err.println("Image is wider than " + Bitboard.WIDTH + " columns, incremental engine is used.");
+		}
+
+		/* Only random search try. */ {
+//			byte[] genome = randomSearch(table, 100_000);
+//			print(System.out, true, genome, table);
+//			Cell.EMPTY.symbol('.');
+//			Cell.OCCUPIED.symbol('.');
+//			try (PrintStream out = new PrintStream(new FileOutputStream(options.get(1)))) {
+//				print(out, false, genome, table);
+//				out.close();
+//			}
+//			System.exit(0);
 		}
 
-		Chromosome fittest = ga.evolve(new ElitisticListPopulation(chromosomes, chromosomes.size() * 2, 0.05),
-				new FixedGenerationCount(GENERATIONS)).getFittestChromosome();
+		/* A resumed run continues to write into the checkpoint it was resumed from. */
+		if (options.has("checkpoint") == true) {
+			checkpoint = new Checkpoint(Paths.get(options.get("checkpoint", "")),
+					options.get("checkpoint-interval", 100));
+			if (options.has("resume") == true) {
+				checkpoint.resume(table);
+			}
+		} else if (options.has("resume") == true) {
+			throw new IllegalArgumentException("Resume needs --checkpoint=file.");
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(options.get("threads", Runtime.getRuntime().availableProcessors()));
+		byte[] genome = solve(table, options, pool);
+		pool.shutdown();
+		if (checkpoint != null) {
+			checkpoint.close();
+		}
 
-		List<Cell> representation = ((CellChromosome) fittest).representation();
-		representation = removeUnused(representation, image);
-		representation = removeHarmful(representation, image);
-		System.out.println(fitness(representation, image));
-		print(System.out, true, representation, image);
+		System.out.println(fitness(genome, table));
+		print(System.out, true, genome, table);
 		Cell.EMPTY.symbol('.');
 		Cell.OCCUPIED.symbol('.');
-		try (PrintStream out = new PrintStream(new FileOutputStream(args[1]))) {
-			print(out, false, representation, image);
-			out.close();
+		try (PrintStream out = new PrintStream(new FileOutputStream(options.get(1)))) {
+			print(out, false, genome, table);
 		}
 	}
 }
@@ -0,0 +1,222 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Attack rays of every piece from every cell of a single image, already clipped to the image (rows may differ in
+ * length). The rays of a cell and a piece are kept in one flat array, each ray written as its length followed by the
+ * flat indices of its targets in walking order: [n1, t11, ..., t1n1, n2, t21, ..., t2n2, ...].
+ */
+class AttackTable {
+	private static final int[] NONE = {};
+
+	/* Bound of the ints kept in the cache of traced rays. */
+	private static final int TRACED = 1 << 24;
+
+	final int[][] image;
+
+	final byte[] pixels;
+
+	final int[] offsets;
+
+	final int[] rows;
+
+	final int[] columns;
+
+	/* Null when the rays are traced on every request. */
+	private final int[][] rays;
+
+	private final int capacity;
+
+	/* Direct mapped cache of traced rays, as a repair tries changes around the same cells again and again. */
+	private final int[] tracedKeys;
+
+	private final int[][] tracedRays;
+
+	private final int[] buffer;
+
+	final Bitboard bitboard;
+
+	/* Zobrist key of every cell ordinal at every cell, the hash of a genome is the exclusive or of its keys. */
+	private final long[] keys;
+
+	final FitnessCache cache;
+
+	/* Fitness values computed for the chromosomes over this table, the hits of the cache are not counted. */
+	final LongAdder evaluations = new LongAdder();
+
+	private CoverageIndex coverage = null;
+
+	AttackTable(int[][] image) {
+		this(image, true);
+	}
+
+	/*
+	 * The rays of a poster-size board do not fit in memory. Without precomputed rays they are traced on request and
+	 * only the recent ones are cached, and the table has no Zobrist keys, fitness cache or bitboard, so it only serves
+	 * evaluators.
+	 */
+	AttackTable(int[][] image, boolean precomputed) {
+		this.image = image;
+
+		int size = App.cells(image);
+		offsets = App.offsets(image);
+		pixels = new byte[size];
+		rows = new int[size];
+		columns = new int[size];
+		for (int i = 0, k = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++, k++) {
+				pixels[k] = (byte) image[i][j];
+				rows[k] = i;
+				columns[k] = j;
+			}
+		}
+
+		capacity = capacity();
+		if (precomputed == false) {
+			int entries = Integer.highestOneBit(Math.max(1, TRACED / Math.max(1, capacity)));
+			tracedKeys = new int[entries];
+			Arrays.fill(tracedKeys, -1);
+			tracedRays = new int[entries][];
+			buffer = new int[capacity];
+
+			rays = null;
+			bitboard = null;
+			keys = null;
+			cache = null;
+			return;
+		}
+
+		tracedKeys = null;
+		tracedRays = null;
+		buffer = null;
+
+		rays = new int[size * App.CELLS.length][];
+		int[] scratch = new int[capacity];
+		for (int k = 0; k < size; k++) {
+			for (Cell cell : App.CELLS) {
+				int length = trace(k, cell, scratch);
+				rays[k * App.CELLS.length + cell.ordinal()] = length == 0 ? NONE : Arrays.copyOf(scratch, length);
+			}
+		}
+
+		bitboard = Bitboard.fits(image) ? new Bitboard(this) : null;
+
+		/* A fixed seed, so the keys do not draw from the random numbers of the run. */
+		Random random = new Random(size);
+		keys = new long[size * App.CELLS.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextLong();
+		}
+
+		cache = App.cacheSize > 0 ? new FitnessCache(App.cacheSize) : null;
+	}
+
+	int size() {
+		return pixels.length;
+	}
+
+	long key(int index, byte cell) {
+		return keys[index * App.CELLS.length + cell];
+	}
+
+	long hash(byte[] genome) {
+		long hash = 0;
+		for (int k = 0; k < genome.length; k++) {
+			hash ^= keys[k * App.CELLS.length + genome[k]];
+		}
+
+		return hash;
+	}
+
+	/* Room for the rays of any cell value, every step of every direction with the length in front of it. */
+	private static int capacity() {
+		int length = 0;
+		for (Cell cell : App.CELLS) {
+			int steps = 0;
+			for (List<Cell.Step> directions : cell.steps()) {
+				steps += directions.size() + 1;
+			}
+			length = Math.max(length, steps);
+		}
+
+		return length;
+	}
+
+	/* Write the rays of the cell value from the cell into the buffer, and return their length. */
+	private int trace(int k, Cell cell, int[] buffer) {
+		int length = 0;
+
+		for (List<Cell.Step> directions : cell.steps()) {
+			int start = length++;
+			for (Cell.Step step : directions) {
+				int x = rows[k] + step.dx;
+				int y = columns[k] + step.dy;
+
+				/* The steps of a direction go on outwards, so once off the image they never come back. */
+				if (x < 0 || x >= image.length || y < 0) {
+					break;
+				}
+
+				/* Columns beyond a short row are skipped, the ray carries on. */
+				if (y >= image[x].length) {
+					continue;
+				}
+
+				buffer[length++] = offsets[x] + y;
+			}
+
+			/* Rays which fall entirely off the image are not kept. */
+			if (length - start == 1) {
+				length--;
+			} else {
+				buffer[start] = length - start - 1;
+			}
+		}
+
+		return length;
+	}
+
+	/* The rays are never changed, so the cached arrays are handed out as they are. */
+	private synchronized int[] traced(int index, Cell cell) {
+		int key = index * App.CELLS.length + cell.ordinal();
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & (tracedKeys.length - 1);
+		if (tracedKeys[slot] != key) {
+			int length = trace(index, cell, buffer);
+			tracedKeys[slot] = key;
+			tracedRays[slot] = length == 0 ? NONE : Arrays.copyOf(buffer, length);
+		}
+
+		return tracedRays[slot];
+	}
+
+	int[] rays(int index, byte cell) {
+		if (rays == null) {
+			return traced(index, App.CELLS[cell]);
+		}
+
+		return rays[index * App.CELLS.length + cell];
+	}
+
+	int[] rays(int index, Cell cell) {
+		if (rays == null) {
+			return traced(index, cell);
+		}
+
+		return rays[index * App.CELLS.length + cell.ordinal()];
+	}
+
+	/* Built on first use, as only the greedy seeding needs it. */
+	synchronized CoverageIndex coverage() {
+		if (coverage == null) {
+			coverage = new CoverageIndex(this);
+		}
+
+		return coverage;
+	}
+}
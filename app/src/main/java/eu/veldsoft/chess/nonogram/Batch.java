@@ -0,0 +1,110 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Solves every image of a directory in one JVM, on a bounded work-stealing pool. The largest files are submitted
+ * first, so a big image does not start last and keep the run waiting. Every result is written as soon as its image
+ * is done. Every job gets its own random stream, split in submission order.
+ */
+class Batch {
+	static interface Job {
+		void solve(Path input, Path output) throws IOException;
+	}
+
+	private final int threads;
+
+	Batch(int threads) {
+		this.threads = threads;
+	}
+
+	private static List<Path> inputs(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Path> inputs = files.filter(file -> Images.extension(file.getFileName().toString()) != null)
+					.collect(Collectors.toList());
+
+			/* The listing order is not defined, but the submission order must be for seeded runs. */
+			Collections.sort(inputs);
+
+			/* File size is a cheap estimate of the image size. */
+			Collections.sort(inputs, Comparator.comparingLong((Path file) -> {
+				try {
+					return Files.size(file);
+				} catch (IOException exception) {
+					return 0L;
+				}
+			}).reversed());
+
+			return inputs;
+		}
+	}
+
+	private static long percentile(List<Long> sorted, double percent) {
+		if (sorted.isEmpty() == true) {
+			return 0;
+		}
+
+		int index = (int) Math.ceil(percent / 100D * sorted.size()) - 1;
+		return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+	}
+
+	void run(Path inputs, Path outputs, String extension, Job job) throws IOException {
+		Files.createDirectories(outputs);
+
+		List<Path> files = inputs(inputs);
+		ExecutorService pool = Executors.newWorkStealingPool(threads);
+
+		long start = System.nanoTime();
+		List<Future<Long>> futures = new ArrayList<>();
+		for (Path input : files) {
+			String name = input.getFileName().toString();
+			Path output = outputs.resolve(name.substring(0, name.length() - Images.extension(name).length()) + extension);
+
+			RandomStreams.Stream stream = RandomStreams.split();
+			futures.add(pool.submit(() -> {
+				RandomStreams.Stream previous = RandomStreams.use(stream);
+				long begin = System.nanoTime();
+				try {
+					job.solve(input, output);
+				} finally {
+					RandomStreams.use(previous);
+				}
+				long time = System.nanoTime() - begin;
+				System.err.println(name + " " + (time / 1_000_000) + " ms");
+				return time;
+			}));
+		}
+
+		List<Long> times = new ArrayList<>();
+		int failed = 0;
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				times.add(futures.get(i).get());
+			} catch (InterruptedException | ExecutionException exception) {
+				System.err.println(files.get(i).getFileName() + " failed: " + exception.getCause());
+				failed++;
+			}
+		}
+		pool.shutdown();
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		Collections.sort(times);
+		System.out.println("Images: " + times.size() + " solved, " + failed + " failed in "
+				+ String.format("%.3f", seconds) + " s");
+		System.out.println("Throughput: " + String.format("%.3f", times.size() / seconds) + " images/s");
+		System.out.println("Solve time: p50 " + percentile(times, 50) / 1_000_000 + " ms, p99 "
+				+ percentile(times, 99) / 1_000_000 + " ms");
+	}
+}
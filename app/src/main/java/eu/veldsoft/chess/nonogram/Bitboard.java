@@ -0,0 +1,224 @@
+package eu.veldsoft.chess.nonogram;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Fitness engine for images no wider than 64 columns. Every row is a long bit mask, attacks are accumulated into
+ * bit-sliced saturating counters (at least one, at least two and at least three attacks), which is all the
+ * information the fitness function needs. Blocking follows App.beaten: a ray stops before a piece and just after an
+ * occupied cell.
+ */
+class Bitboard {
+	static final int WIDTH = Long.SIZE;
+
+	/* Per cell ordinal: occupied, piece, king, knight, orthogonal slider and diagonal slider bits. */
+	private static final int[] FLAGS = new int[App.CELLS.length];
+
+	static {
+		FLAGS[Cell.OCCUPIED.ordinal()] = 0b000001;
+		FLAGS[Cell.KING.ordinal()] = 0b000110;
+		FLAGS[Cell.KNIGHT.ordinal()] = 0b001010;
+		FLAGS[Cell.ROOK.ordinal()] = 0b010010;
+		FLAGS[Cell.BISHOP.ordinal()] = 0b100010;
+		FLAGS[Cell.QUEEN.ordinal()] = 0b110010;
+	}
+
+	private final AttackTable table;
+
+	private final int[] widths;
+
+	private final long[] valid;
+
+	private final long[] zeros;
+
+	private static class Counters {
+		long[] pieces;
+		long[] occupied;
+		long[] kings;
+		long[] knights;
+		long[] orthogonal;
+		long[] diagonal;
+		long[] one;
+		long[] two;
+		long[] three;
+
+		Counters(int rows) {
+			pieces = new long[rows];
+			occupied = new long[rows];
+			kings = new long[rows];
+			knights = new long[rows];
+			orthogonal = new long[rows];
+			diagonal = new long[rows];
+			one = new long[rows];
+			two = new long[rows];
+			three = new long[rows];
+		}
+
+		void add(int row, long mask) {
+			three[row] |= two[row] & mask;
+			two[row] |= one[row] & mask;
+			one[row] |= mask;
+		}
+	}
+
+	static boolean fits(int[][] image) {
+		for (int i = 0; i < image.length; i++) {
+			if (image[i].length > WIDTH) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	Bitboard(AttackTable table) {
+		this.table = table;
+
+		int[][] image = table.image;
+		widths = new int[image.length];
+		valid = new long[image.length];
+		zeros = new long[image.length];
+		for (int i = 0; i < image.length; i++) {
+			widths[i] = image[i].length;
+			valid[i] = widths[i] == WIDTH ? -1L : (1L << widths[i]) - 1;
+			for (int j = 0; j < image[i].length; j++) {
+				if (image[i][j] == 0) {
+					zeros[i] |= 1L << j;
+				}
+			}
+		}
+	}
+
+	private static long shift(long bits, int dy) {
+		return dy >= 0 ? bits << dy : bits >>> -dy;
+	}
+
+	/* Single step of all kings or all knights at once. Each offset hits a cell at most once, so it is one addition. */
+	private void step(Counters counters, long[] from, int dx, int dy) {
+		for (int i = 0; i < widths.length; i++) {
+			int x = i + dx;
+
+			if (x < 0) {
+				continue;
+			}
+			if (x >= widths.length) {
+				continue;
+			}
+
+			counters.add(x, shift(from[i], dy) & valid[x] & ~counters.pieces[x]);
+		}
+	}
+
+	/*
+	 * All vertical or diagonal rays of one direction at once. Pieces block each other, so at most one ray of a given
+	 * direction reaches any cell and the rays can be flooded row by row as a single mask. Columns beyond a short row are
+	 * skipped but carried on, the same way the clipped rays of the attack table skip them.
+	 */
+	private void slide(Counters counters, long[] from, int dx, int dy) {
+		long carry = 0;
+		for (int i = dx > 0 ? 0 : widths.length - 1; i >= 0 && i < widths.length; i += dx) {
+			long arriving = shift(carry, dy);
+
+			counters.add(i, arriving & valid[i] & ~counters.pieces[i]);
+
+			carry = (arriving & ~counters.pieces[i] & ~counters.occupied[i]) | from[i];
+		}
+	}
+
+	/* Horizontal rays of one piece in both directions, resolved on the row mask with the first blocker on each side. */
+	private void horizontal(Counters counters, int i, int j) {
+		long blockers = counters.pieces[i] | counters.occupied[i];
+
+		long above = (-2L << j) & valid[i];
+		long stop = blockers & above;
+		if (stop != 0) {
+			above &= (Long.lowestOneBit(stop) << 1) - 1;
+		}
+
+		long below = ((1L << j) - 1) & valid[i];
+		stop = blockers & below;
+		if (stop != 0) {
+			below &= -Long.highestOneBit(stop);
+		}
+
+		counters.add(i, (above | below) & ~counters.pieces[i]);
+	}
+
+	int fitness(byte[] genome) {
+		Counters counters = new Counters(widths.length);
+
+		/* Branch-free split of the genome into row masks, one flag bit per mask. */
+		for (int i = 0, k = 0; i < widths.length; i++) {
+			long occupied = 0;
+			long pieces = 0;
+			long kings = 0;
+			long knights = 0;
+			long orthogonal = 0;
+			long diagonal = 0;
+
+			for (int j = 0; j < widths[i]; j++, k++) {
+				long flags = FLAGS[genome[k]];
+
+				occupied |= (flags & 1) << j;
+				pieces |= ((flags >>> 1) & 1) << j;
+				kings |= ((flags >>> 2) & 1) << j;
+				knights |= ((flags >>> 3) & 1) << j;
+				orthogonal |= ((flags >>> 4) & 1) << j;
+				diagonal |= ((flags >>> 5) & 1) << j;
+			}
+
+			counters.occupied[i] = occupied;
+			counters.pieces[i] = pieces;
+			counters.kings[i] = kings;
+			counters.knights[i] = knights;
+			counters.orthogonal[i] = orthogonal;
+			counters.diagonal[i] = diagonal;
+		}
+
+		for (int dx = -1; dx <= +1; dx++) {
+			for (int dy = -1; dy <= +1; dy++) {
+				if (dx == 0 && dy == 0) {
+					continue;
+				}
+
+				step(counters, counters.kings, dx, dy);
+			}
+		}
+
+		for (int dx = -2; dx <= +2; dx++) {
+			for (int dy = -2; dy <= +2; dy++) {
+				if (Math.abs(dx * dy) != 2) {
+					continue;
+				}
+
+				step(counters, counters.knights, dx, dy);
+			}
+		}
+
+		for (int dx = -1; dx <= +1; dx += 2) {
+			slide(counters, counters.orthogonal, dx, 0);
+			slide(counters, counters.diagonal, dx, -1);
+			slide(counters, counters.diagonal, dx, +1);
+		}
+
+		for (int i = 0; i < widths.length; i++) {
+			for (long sliders = counters.orthogonal[i]; sliders != 0; sliders &= sliders - 1) {
+				horizontal(counters, i, Long.numberOfTrailingZeros(sliders));
+			}
+		}
+
+		int best = 0;
+		int good = 0;
+		int underbeaten = 0;
+		int bad = 0;
+		for (int i = 0; i < widths.length; i++) {
+			long occupied = counters.occupied[i];
+			best += Long.bitCount(counters.two[i] & ~counters.three[i] & occupied);
+			good += Long.bitCount(counters.three[i] & occupied);
+			underbeaten += Long.bitCount(~counters.two[i] & occupied);
+			bad += Long.bitCount(counters.two[i] & zeros[i]);
+		}
+
+		return best * App.BEST + good * App.GOOD + underbeaten * App.UNDERBEATEN + bad * App.BAD;
+	}
+}
@@ -0,0 +1,74 @@
+package eu.veldsoft.chess.nonogram;
+
+/*
+ * One bit per pixel, all rows packed one after the other into a flat array of longs. Rows may differ in length. A
+ * 10000x10000 mask takes 12.5 MB.
+ */
+class Bitmap {
+	private final long[] bits;
+
+	/* Bit position of the first pixel of every row, with the total length at the end. */
+	private final long[] offsets;
+
+	Bitmap(long[] bits, int[] widths) {
+		this.bits = bits;
+
+		offsets = new long[widths.length + 1];
+		for (int i = 0; i < widths.length; i++) {
+			offsets[i + 1] = offsets[i] + widths[i];
+		}
+	}
+
+	static Bitmap of(int[][] image) {
+		int[] widths = new int[image.length];
+		long size = 0;
+		for (int i = 0; i < image.length; i++) {
+			widths[i] = image[i].length;
+			size += widths[i];
+		}
+
+		long[] bits = new long[(int) ((size + Long.SIZE - 1) / Long.SIZE)];
+		long p = 0;
+		for (int i = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++, p++) {
+				if (image[i][j] != 0) {
+					bits[(int) (p >>> 6)] |= 1L << (p & 63);
+				}
+			}
+		}
+
+		return new Bitmap(bits, widths);
+	}
+
+	int rows() {
+		return offsets.length - 1;
+	}
+
+	int width(int row) {
+		return (int) (offsets[row + 1] - offsets[row]);
+	}
+
+	int get(int row, int column) {
+		long p = offsets[row] + column;
+		return (int) (bits[(int) (p >>> 6)] >>> (p & 63)) & 1;
+	}
+
+	/* Unpack a row into the array, one pixel per element. */
+	void row(int row, int[] pixels) {
+		long p = offsets[row];
+		for (int j = 0, width = width(row); j < width; j++, p++) {
+			pixels[j] = (int) (bits[(int) (p >>> 6)] >>> (p & 63)) & 1;
+		}
+	}
+
+	/* Expanded copy for the chess engines, which work on small images. */
+	int[][] image() {
+		int[][] image = new int[rows()][];
+		for (int i = 0; i < image.length; i++) {
+			image[i] = new int[width(i)];
+			row(i, image[i]);
+		}
+
+		return image;
+	}
+}
@@ -0,0 +1,108 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.genetics.Chromosome;
+
+/*
+ * Chromosome backed by a flat array of cell ordinals, in row-major order of the image. The genome is never changed
+ * after construction, so it is shared with the evaluator instead of copied. Its Zobrist hash keys the fitness cache of
+ * the attack table.
+ */
+class CellChromosome extends Chromosome {
+	private final byte[] genome;
+
+	private final AttackTable table;
+
+	private final long hash;
+
+	/* Migrants are shared between islands, which may build the evaluator at the same time. */
+	private volatile Evaluator evaluator = null;
+
+	CellChromosome(byte[] genome, AttackTable table) {
+		this(genome, table, table.hash(genome));
+	}
+
+	CellChromosome(byte[] genome, AttackTable table, long hash) {
+		this.genome = genome;
+		this.table = table;
+		this.hash = hash;
+	}
+
+	CellChromosome(Evaluator evaluator, AttackTable table, long hash) {
+		this.genome = evaluator.genome();
+		this.table = table;
+		this.hash = hash;
+		this.evaluator = evaluator;
+	}
+
+	byte[] genome() {
+		return genome;
+	}
+
+	long hash() {
+		return hash;
+	}
+
+	AttackTable table() {
+		return table;
+	}
+
+	/* Whether the counters were built, which a cache hit skips. */
+	boolean hasEvaluator() {
+		return evaluator != null;
+	}
+
+	/* Two threads may both build it, but the evaluators are equal, and each is published only when complete. */
+	Evaluator evaluator() {
+		Evaluator result = evaluator;
+		if (result == null) {
+			result = new Evaluator(genome, table);
+			evaluator = result;
+		}
+
+		return result;
+	}
+
+	@Override
+	public double fitness() {
+		Events.Fitness event = new Events.Fitness();
+		event.begin();
+
+		long cached = table.cache == null ? FitnessCache.MISS : table.cache.get(hash);
+		int score;
+		if (cached != FitnessCache.MISS) {
+			score = (int) cached;
+		} else {
+			table.evaluations.increment();
+			score = evaluate();
+			if (table.cache != null) {
+				table.cache.put(hash, score);
+			}
+		}
+
+		event.end();
+		if (event.shouldCommit() == true) {
+			event.cells = genome.length;
+			event.pieces = Events.pieces(genome);
+			event.engine = App.engine.name();
+			event.cached = cached != FitnessCache.MISS;
+			event.score = score;
+			event.commit();
+		}
+
+		return score;
+	}
+
+	private int evaluate() {
+		switch (App.engine) {
+		case REFERENCE:
+			return App.fitness(genome, table);
+		case BITBOARD:
+			if (table.bitboard != null) {
+				return table.bitboard.fitness(genome);
+			}
+			return evaluator().score();
+		default:
+			return evaluator().score();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ChromosomePair;
+import org.apache.commons.math3.genetics.CrossoverPolicy;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Uniform crossover with ratio of one half over the byte genomes.
+ */
+class CellCrossover implements CrossoverPolicy {
+	private final AttackTable table;
+
+	CellCrossover(AttackTable table) {
+		this.table = table;
+	}
+
+	@Override
+	public ChromosomePair crossover(Chromosome first, Chromosome second) throws MathIllegalArgumentException {
+		byte[] parent1 = ((CellChromosome) first).genome();
+		byte[] parent2 = ((CellChromosome) second).genome();
+		byte[] child1 = new byte[parent1.length];
+		byte[] child2 = new byte[parent2.length];
+
+		/* The hashes of the children are collected on the same pass. */
+		long hash1 = 0;
+		long hash2 = 0;
+
+		RandomGenerator random = RandomStreams.current();
+		for (int k = 0; k < parent1.length; k++) {
+			if (random.nextDouble() < 0.5D) {
+				child1[k] = parent2[k];
+				child2[k] = parent1[k];
+			} else {
+				child1[k] = parent1[k];
+				child2[k] = parent2[k];
+			}
+
+			hash1 ^= table.key(k, child1[k]);
+			hash2 ^= table.key(k, child2[k]);
+		}
+
+		return new ChromosomePair(new CellChromosome(child1, table, hash1),
+				new CellChromosome(child2, table, hash2));
+	}
+}
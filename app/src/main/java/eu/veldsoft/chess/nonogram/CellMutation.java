@@ -0,0 +1,55 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.MutationPolicy;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Puts a random piece on a random free cell or clears it, with equal probability.
+ */
+class CellMutation implements MutationPolicy {
+	private final AttackTable table;
+
+	CellMutation(AttackTable table) {
+		this.table = table;
+	}
+
+	@Override
+	public Chromosome mutate(Chromosome original) throws MathIllegalArgumentException {
+		CellChromosome parent = (CellChromosome) original;
+		byte[] genome = parent.genome();
+
+		RandomGenerator random = RandomStreams.current();
+
+		byte cell = App.OCCUPIED;
+		int index = random.nextInt(genome.length);
+		if (genome[index] != App.OCCUPIED) {
+			if (random.nextDouble() < 0.5D) {
+				cell = (byte) App.PIECES_ARRAY[random.nextInt(App.PIECES_ARRAY.length)].ordinal();
+			} else {
+				cell = App.EMPTY;
+			}
+		}
+
+		if (cell == App.OCCUPIED) {
+			return new CellChromosome(genome, table, parent.hash());
+		}
+
+		long hash = parent.hash() ^ table.key(index, genome[index]) ^ table.key(index, cell);
+
+		/*
+		 * Only one cell changes, so the counters of the original are updated instead of rebuilt. A parent whose fitness
+		 * came from the cache has no counters, and they are not built here, in the serial breeding loop.
+		 */
+		if (App.engine == Engine.INCREMENTAL && parent.hasEvaluator() == true) {
+			Evaluator evaluator = new Evaluator(parent.evaluator());
+			evaluator.set(index, cell);
+			return new CellChromosome(evaluator, table, hash);
+		}
+
+		genome = genome.clone();
+		genome[index] = cell;
+		return new CellChromosome(genome, table, hash);
+	}
+}
@@ -0,0 +1,236 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ElitisticListPopulation;
+import org.apache.commons.math3.genetics.Population;
+
+/*
+ * Snapshot of the populations of a run, written every interval of generations. Cells are packed two per byte, with
+ * the fitness of every individual in front of its genome. The state of a SplittableRandom can not be read, so at
+ * every checkpoint each random stream is reseeded with a value drawn from it, and the value is stored. A resumed run
+ * reseeds its streams the same way and continues exactly as the interrupted one. The counters of the stopping
+ * conditions are stored too, so the generation, stagnation, time and evaluation budgets continue where they were.
+ *
+ * The file is written by a background thread into a temporary file, which is then renamed over the previous
+ * checkpoint. A checkpoint which comes while the previous one is still being written is skipped.
+ */
+class Checkpoint implements Closeable {
+	/* Populations with the seeds of their streams. The first seed is of the main thread. */
+	static class State {
+		final int generation;
+
+		final long[] seeds;
+
+		final long[] progress;
+
+		final Population[] populations;
+
+		State(int generation, long[] seeds, long[] progress, Population[] populations) {
+			this.generation = generation;
+			this.seeds = seeds;
+			this.progress = progress;
+			this.populations = populations;
+		}
+	}
+
+	private static final int MAGIC = 0x4E474350;
+
+	private static final int VERSION = 2;
+
+	private final Path file;
+
+	private final int interval;
+
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final AtomicBoolean busy = new AtomicBoolean(false);
+
+	private State resumed = null;
+
+	Checkpoint(Path file, int interval) {
+		this.file = file;
+		this.interval = interval;
+	}
+
+	/* Whether a checkpoint falls into the generations after the first one up to the last one. */
+	boolean due(int first, int last) {
+		return last / interval > first / interval;
+	}
+
+	/* Reseed the stream with a value drawn from it, and return the value for the checkpoint. */
+	static long reseed(RandomStreams.Stream stream) {
+		long seed = stream.nextLong();
+		stream.setSeed(seed);
+		return seed;
+	}
+
+	/* Chromosomes never change after construction, so only the references are taken in the evolution thread. */
+	void save(int generation, long[] seeds, long[] progress, Population... populations) {
+		if (busy.compareAndSet(false, true) == false) {
+			return;
+		}
+
+		List<List<Chromosome>> snapshot = new ArrayList<>();
+		double[] rates = new double[populations.length];
+		int[] limits = new int[populations.length];
+		for (int i = 0; i < populations.length; i++) {
+			List<Chromosome> chromosomes = new ArrayList<>();
+			for (Chromosome chromosome : populations[i]) {
+				chromosomes.add(chromosome);
+			}
+			snapshot.add(chromosomes);
+			rates[i] = ((ElitisticListPopulation) populations[i]).getElitismRate();
+			limits[i] = populations[i].getPopulationLimit();
+		}
+
+		AttackTable table = ((CellChromosome) snapshot.get(0).get(0)).table();
+		writer.execute(() -> {
+			try {
+				write(table, generation, seeds.clone(), progress.clone(), snapshot, rates, limits);
+			} catch (IOException exception) {
+				System.err.println("Checkpoint failed: " + exception.getMessage());
+			} finally {
+				busy.set(false);
+			}
+		});
+	}
+
+	private void write(AttackTable table, int generation, long[] seeds, long[] progress,
+			List<List<Chromosome>> populations, double[] rates, int[] limits) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(table.size());
+			out.writeInt(Arrays.hashCode(table.pixels));
+			out.writeInt(generation);
+
+			out.writeInt(seeds.length);
+			for (long seed : seeds) {
+				out.writeLong(seed);
+			}
+
+			out.writeInt(progress.length);
+			for (long value : progress) {
+				out.writeLong(value);
+			}
+
+			byte[] packed = new byte[(table.size() + 1) / 2];
+			out.writeInt(populations.size());
+			for (int i = 0; i < populations.size(); i++) {
+				out.writeInt(limits[i]);
+				out.writeDouble(rates[i]);
+				out.writeInt(populations.get(i).size());
+				for (Chromosome chromosome : populations.get(i)) {
+					out.writeInt((int) chromosome.getFitness());
+					out.write(pack(((CellChromosome) chromosome).genome(), packed));
+				}
+			}
+		}
+
+		Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static byte[] pack(byte[] genome, byte[] packed) {
+		Arrays.fill(packed, (byte) 0);
+		for (int k = 0; k < genome.length; k++) {
+			packed[k >> 1] = (byte) (packed[k >> 1] | genome[k] << ((k & 1) << 2));
+		}
+
+		return packed;
+	}
+
+	/* The stored fitness values go into the cache, so the resumed populations are not evaluated again. */
+	static State load(Path file, AttackTable table) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Unknown checkpoint format " + file + ".");
+			}
+			if (in.readInt() != table.size() || in.readInt() != Arrays.hashCode(table.pixels)) {
+				throw new IOException("Checkpoint " + file + " is of another image.");
+			}
+			int generation = in.readInt();
+
+			long[] seeds = new long[in.readInt()];
+			for (int s = 0; s < seeds.length; s++) {
+				seeds[s] = in.readLong();
+			}
+
+			long[] progress = new long[in.readInt()];
+			for (int p = 0; p < progress.length; p++) {
+				progress[p] = in.readLong();
+			}
+
+			byte[] packed = new byte[(table.size() + 1) / 2];
+			Population[] populations = new Population[in.readInt()];
+			for (int i = 0; i < populations.length; i++) {
+				int limit = in.readInt();
+				double rate = in.readDouble();
+
+				List<Chromosome> chromosomes = new ArrayList<>();
+				for (int c = in.readInt(); c > 0; c--) {
+					int fitness = in.readInt();
+					in.readFully(packed);
+
+					byte[] genome = new byte[table.size()];
+					for (int k = 0; k < genome.length; k++) {
+						genome[k] = (byte) ((packed[k >> 1] >> ((k & 1) << 2)) & 0x0F);
+					}
+
+					CellChromosome chromosome = new CellChromosome(genome, table);
+					if (table.cache != null) {
+						table.cache.put(chromosome.hash(), fitness);
+					}
+					chromosomes.add(chromosome);
+				}
+				populations[i] = new ElitisticListPopulation(chromosomes, limit, rate);
+			}
+
+			return new State(generation, seeds, progress, populations);
+		}
+	}
+
+	/* Load the state to continue from, when the checkpoint file exists. */
+	void resume(AttackTable table) throws IOException {
+		if (Files.exists(file) == true) {
+			resumed = load(file, table);
+		}
+	}
+
+	State resumed() {
+		return resumed;
+	}
+
+	/* Wait for the checkpoint being written. */
+	@Override
+	public void close() {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
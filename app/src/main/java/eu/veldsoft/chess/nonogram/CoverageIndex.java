@@ -0,0 +1,78 @@
+package eu.veldsoft.chess.nonogram;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Inverse of the attack table: for every one pixel, the placements of a piece on a zero pixel which attack it. The
+ * attacks are taken on the board without pieces, where only the one pixels stop the rays. A single piece attacks
+ * every cell at most once, so no placement of the index over-attacks a zero pixel by itself, and whether it does
+ * together with the pieces already placed is left to the evaluator of the caller.
+ *
+ * A placement is coded as cell * App.CELLS.length + piece, the index of its rays in the attack table. The lists are
+ * kept in one array, with the start of the list of every cell.
+ */
+class CoverageIndex {
+	private final int[] starts;
+
+	private final int[] placements;
+
+	CoverageIndex(AttackTable table) {
+		int size = table.size();
+
+		int[] next = new int[size];
+		walk(table, next, null);
+
+		starts = new int[size + 1];
+		for (int k = 0; k < size; k++) {
+			starts[k + 1] = starts[k] + next[k];
+			next[k] = starts[k];
+		}
+
+		placements = new int[starts[size]];
+		walk(table, next, placements);
+	}
+
+	/* Count the placements of every one pixel, or put them at the next free place of its list. */
+	private static void walk(AttackTable table, int[] next, int[] placements) {
+		for (int k = 0; k < table.size(); k++) {
+			if (table.pixels[k] != 0) {
+				continue;
+			}
+
+			for (Cell piece : App.PIECES_ARRAY) {
+				int[] rays = table.rays(k, piece);
+				for (int r = 0; r < rays.length; r += rays[r] + 1) {
+					for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+						int target = rays[t];
+						if (table.pixels[target] == 0) {
+							continue;
+						}
+
+						if (placements == null) {
+							next[target]++;
+						} else {
+							placements[next[target]++] = k * App.CELLS.length + piece.ordinal();
+						}
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	int count(int pixel) {
+		return starts[pixel + 1] - starts[pixel];
+	}
+
+	int placement(int pixel, int i) {
+		return placements[starts[pixel] + i];
+	}
+
+	static int cell(int placement) {
+		return placement / App.CELLS.length;
+	}
+
+	static byte piece(int placement) {
+		return (byte) (placement % App.CELLS.length);
+	}
+}
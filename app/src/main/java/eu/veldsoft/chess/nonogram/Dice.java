@@ -0,0 +1,135 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Dice nonogram: every zero pixel shows the number of one pixels among its eight neighbours, or zero when it is more
+ * than six. The neighbour sum is separable, so every row is done in one pass: the three rows around it are added
+ * column by column, then a sliding window of three columns is moved along the row and the pixel itself is taken out.
+ * Bands of rows are independent and are computed in parallel, straight from the packed bitmap. Cells missing from a
+ * short row count as zero. The window runs on VectorDice when the vector kernels are enabled, because the JIT does
+ * not vectorize its narrowing conditional store by itself, and the scalar loop finishes the tail of the row.
+ */
+class Dice {
+	/* Rows below which a band is not split any more. */
+	private static final int BAND = 64;
+
+	private static class Band extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Bitmap image;
+
+		private final byte[][] board;
+
+		private final int first;
+
+		private final int from;
+
+		private final int to;
+
+		Band(Bitmap image, byte[][] board, int first, int from, int to) {
+			this.image = image;
+			this.board = board;
+			this.first = first;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BAND) {
+				rows(image, board, first, from, to);
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new Band(image, board, first, from, middle), new Band(image, board, first, middle, to));
+		}
+	}
+
+	private static void add(int[] sums, int[] row, int width) {
+		for (int j = 0; j < width; j++) {
+			sums[j + 1] += row[j];
+		}
+	}
+
+	/* Rows from the first to the last one, stored in the board from its first row on. */
+	private static void rows(Bitmap image, byte[][] board, int first, int from, int to) {
+		int width = 0;
+		for (int i = Math.max(0, from - 1); i < Math.min(image.rows(), to + 1); i++) {
+			width = Math.max(width, image.width(i));
+		}
+
+		/* Three unpacked rows, reused as the band moves down. */
+		int[] above = new int[width];
+		int[] middle = new int[width];
+		int[] below = new int[width];
+		if (from > 0) {
+			image.row(from - 1, above);
+		}
+		image.row(from, middle);
+
+		/* Column sums with a zero column on both sides, so the window needs no bounds checks. */
+		int[] sums = new int[width + 2];
+		for (int i = from; i < to; i++) {
+			if (i + 1 < image.rows()) {
+				image.row(i + 1, below);
+			}
+
+			Arrays.fill(sums, 0);
+			if (i > 0) {
+				add(sums, above, image.width(i - 1));
+			}
+			add(sums, middle, image.width(i));
+			if (i + 1 < image.rows()) {
+				add(sums, below, image.width(i + 1));
+			}
+
+			byte[] digits = new byte[image.width(i)];
+			int j = Scoring.VECTOR == true ? VectorDice.digits(sums, middle, digits) : 0;
+			for (; j < digits.length; j++) {
+				int sum = sums[j] + sums[j + 1] + sums[j + 2] - middle[j];
+				digits[j] = (byte) ('0' + (middle[j] == 0 && sum <= 6 ? sum : 0));
+			}
+			board[i - first] = digits;
+
+			int[] rotated = above;
+			above = middle;
+			middle = below;
+			below = rotated;
+		}
+	}
+
+	/*
+	 * Compute and write the board, a few bands at a time, so only a part of it is ever held in memory. Without a pool
+	 * everything runs in the calling thread.
+	 */
+	static void write(Bitmap image, ForkJoinPool pool, Path file) throws IOException {
+		int chunk = BAND * (pool == null ? 1 : 4 * pool.getParallelism());
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+			for (int from = 0; from < image.rows(); from += chunk) {
+				int to = Math.min(image.rows(), from + chunk);
+
+				byte[][] board = new byte[to - from][];
+				if (pool == null) {
+					rows(image, board, from, from, to);
+				} else {
+					pool.invoke(new Band(image, board, from, from, to));
+				}
+
+				for (byte[] row : board) {
+					out.write(row);
+					out.write('\n');
+				}
+			}
+		}
+	}
+}
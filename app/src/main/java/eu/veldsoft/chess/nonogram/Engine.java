@@ -0,0 +1,15 @@
+package eu.veldsoft.chess.nonogram;
+
+/*
+ * Ways of computing the fitness of a chromosome.
+ */
+enum Engine {
+	/* Full recount with App.fitness. */
+	REFERENCE,
+
+	/* Counters kept per chromosome and updated in place by single-cell mutations. */
+	INCREMENTAL,
+
+	/* Row bit masks with bit-sliced counters, for images no wider than 64 columns. */
+	BITBOARD;
+}
@@ -0,0 +1,240 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.BitSet;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Keeps the attack counters of a single genome and updates them, together with the score, when only one cell
+ * changes. Only the rays of the changed cell and the rays of the pieces passing through it are walked again.
+ */
+class Evaluator {
+	private final AttackTable table;
+
+	private final byte[] cells;
+
+	private final int[] counters;
+
+	private final int[] affected = new int[32];
+
+	private int score;
+
+	private int unbeaten;
+
+	private int overbeaten;
+
+	private BitSet touched = null;
+
+	/* One pixels attacked less than twice and zero pixels attacked more than once, kept only when asked for. */
+	private BitSet underbeaten = null;
+
+	private BitSet overattacked = null;
+
+	Evaluator(byte[] genome, AttackTable table) {
+		this.table = table;
+
+		cells = genome.clone();
+		counters = new int[cells.length];
+
+		for (int k = 0; k < cells.length; k++) {
+			score += App.score(App.CELLS[cells[k]], table.pixels[k], 0);
+			if (table.pixels[k] == 1) {
+				unbeaten++;
+			}
+		}
+		for (int k = 0; k < cells.length; k++) {
+			if (App.isPiece(cells[k]) == true) {
+				attack(k, +1);
+			}
+		}
+	}
+
+	Evaluator(Evaluator other) {
+		table = other.table;
+		cells = other.cells.clone();
+		counters = other.counters.clone();
+		score = other.score;
+		unbeaten = other.unbeaten;
+		overbeaten = other.overbeaten;
+
+		/* The sets of a shared evaluator are published under its lock, so they are read under it too. */
+		synchronized (other) {
+			if (other.underbeaten != null) {
+				underbeaten = (BitSet) other.underbeaten.clone();
+				overattacked = (BitSet) other.overattacked.clone();
+			}
+		}
+	}
+
+	private void change(int index, int delta) {
+		int pixel = table.pixels[index];
+
+		score -= App.score(App.CELLS[cells[index]], pixel, counters[index]);
+		if (pixel == 1 && counters[index] < 2) {
+			unbeaten--;
+		}
+		if (pixel == 0 && counters[index] > 1) {
+			overbeaten--;
+		}
+
+		counters[index] += delta;
+
+		score += App.score(App.CELLS[cells[index]], pixel, counters[index]);
+		if (pixel == 1 && counters[index] < 2) {
+			unbeaten++;
+		}
+		if (pixel == 0 && counters[index] > 1) {
+			overbeaten++;
+		}
+
+		if (touched != null) {
+			touched.set(index);
+		}
+		if (underbeaten != null) {
+			deficit(index);
+		}
+	}
+
+	private void deficit(int index) {
+		underbeaten.set(index, table.pixels[index] == 1 && counters[index] < 2);
+		overattacked.set(index, table.pixels[index] == 0 && counters[index] > 1);
+	}
+
+	/*
+	 * Start to keep the deficit sets, which are then copied with the evaluator and updated with every change. Migrants
+	 * are shared between islands, so the sets are built and copied under the lock of the evaluator. The sets are
+	 * ordered, so a choice from them does not depend on the history of the evaluator.
+	 */
+	synchronized void deficits() {
+		if (underbeaten != null) {
+			return;
+		}
+
+		BitSet under = new BitSet(cells.length);
+		BitSet over = new BitSet(cells.length);
+		for (int k = 0; k < cells.length; k++) {
+			under.set(k, table.pixels[k] == 1 && counters[k] < 2);
+			over.set(k, table.pixels[k] == 0 && counters[k] > 1);
+		}
+
+		underbeaten = under;
+		overattacked = over;
+	}
+
+	BitSet underbeaten() {
+		return underbeaten;
+	}
+
+	BitSet overattacked() {
+		return overattacked;
+	}
+
+	/* Add or remove the influence of the piece at the index, with the same break rules as App.beaten. */
+	private void attack(int index, int delta) {
+		int[] rays = table.rays(index, cells[index]);
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+				int target = rays[t];
+
+				if (App.isPiece(cells[target]) == true) {
+					break;
+				}
+
+				change(target, delta);
+
+				if (cells[target] == App.OCCUPIED) {
+					break;
+				}
+			}
+		}
+	}
+
+	/* Pieces whose rays reach the index. All move sets are symmetric, so the rays are walked back from the index. */
+	private int collect(int index) {
+		int size = 0;
+
+		for (Cell piece : App.PIECES_ARRAY) {
+			int[] rays = table.rays(index, piece);
+			for (int r = 0; r < rays.length; r += rays[r] + 1) {
+				for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+					int target = rays[t];
+
+					if (cells[target] == piece.ordinal()) {
+						affected[size++] = target;
+					}
+
+					if (cells[target] != App.EMPTY) {
+						break;
+					}
+				}
+			}
+		}
+
+		return size;
+	}
+
+	void set(int index, byte cell) {
+		byte previous = cells[index];
+		if (previous == cell) {
+			return;
+		}
+
+		/* Changing one piece for another does not block or unblock any foreign ray. */
+		int size = 0;
+		if (App.isPiece(previous) == false || App.isPiece(cell) == false) {
+			size = collect(index);
+		}
+
+		for (int a = 0; a < size; a++) {
+			attack(affected[a], -1);
+		}
+		if (App.isPiece(previous) == true) {
+			attack(index, -1);
+		}
+
+		cells[index] = cell;
+
+		for (int a = 0; a < size; a++) {
+			attack(affected[a], +1);
+		}
+		if (App.isPiece(cell) == true) {
+			attack(index, +1);
+		}
+	}
+
+	byte get(int index) {
+		return cells[index];
+	}
+
+	int counter(int index) {
+		return counters[index];
+	}
+
+	/* Every cell whose counter changes is marked in the given set, until it is replaced with null. */
+	void touched(BitSet touched) {
+		this.touched = touched;
+	}
+
+	int size() {
+		return cells.length;
+	}
+
+	int score() {
+		return score;
+	}
+
+	/* Number of one pixels attacked less than twice. */
+	int unbeaten() {
+		return unbeaten;
+	}
+
+	/* Number of zero pixels attacked more than once. */
+	int overbeaten() {
+		return overbeaten;
+	}
+
+	/* The genome is owned by the evaluator, so it must not be changed by the caller. */
+	byte[] genome() {
+		return cells;
+	}
+}
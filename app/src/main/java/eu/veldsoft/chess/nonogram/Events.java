@@ -0,0 +1,149 @@
+package eu.veldsoft.chess.nonogram;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight recorder events of the hot paths. All of them are disabled unless a recording settings file enables them,
+ * for example -XX:StartFlightRecording:settings=default,settings=app/nonogram.jfc. A disabled event costs a check of
+ * a static flag, and its fields are only filled when shouldCommit() says the event will be recorded.
+ */
+class Events {
+	private static final String CATEGORY = "Chess Nonogram";
+
+	@Name("eu.veldsoft.chess.nonogram.Fitness")
+	@Label("Fitness")
+	@Description("Fitness request of a chromosome, answered by an engine or by the cache.")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class Fitness extends Event {
+		@Label("Cells")
+		int cells;
+
+		@Label("Pieces")
+		int pieces;
+
+		@Label("Engine")
+		String engine;
+
+		@Label("Cached")
+		boolean cached;
+
+		@Label("Score")
+		int score;
+	}
+
+	@Name("eu.veldsoft.chess.nonogram.Beaten")
+	@Label("Beaten")
+	@Description("Full count of the attacks on every cell.")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class Beaten extends Event {
+		@Label("Cells")
+		int cells;
+
+		@Label("Pieces")
+		int pieces;
+	}
+
+	@Name("eu.veldsoft.chess.nonogram.RemoveHarmful")
+	@Label("Remove Harmful")
+	@Description("Worklist pass which removes the pieces over-attacking zero pixels.")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class RemoveHarmful extends Event {
+		@Label("Cells")
+		int cells;
+
+		@Label("Examined")
+		@Description("Pieces taken from the worklist.")
+		int examined;
+
+		@Label("Removed")
+		int removed;
+
+		@Label("Touched")
+		@Description("Cells whose counters changed.")
+		int touched;
+	}
+
+	@Name("eu.veldsoft.chess.nonogram.RemoveUnused")
+	@Label("Remove Unused")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class RemoveUnused extends Event {
+		@Label("Cells")
+		int cells;
+
+		@Label("Pieces")
+		int pieces;
+
+		@Label("Removed")
+		int removed;
+	}
+
+	@Name("eu.veldsoft.chess.nonogram.RandomSearch")
+	@Label("Random Search")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class RandomSearch extends Event {
+		@Label("Cells")
+		int cells;
+
+		@Label("Attempts")
+		int attempts;
+
+		@Label("Placed")
+		int placed;
+
+		@Label("Pieces")
+		int pieces;
+
+		@Label("Unbeaten")
+		@Description("One pixels attacked less than twice at the end.")
+		int unbeaten;
+	}
+
+	@Name("eu.veldsoft.chess.nonogram.Generation")
+	@Label("Generation")
+	@Category(CATEGORY)
+	@Enabled(false)
+	@StackTrace(false)
+	static class Generation extends Event {
+		@Label("Island")
+		int island;
+
+		@Label("Generation")
+		int generation;
+
+		@Label("Cells")
+		int cells;
+
+		@Label("Population")
+		int population;
+
+		@Label("Best")
+		double best;
+	}
+
+	static int pieces(byte[] genome) {
+		int pieces = 0;
+		for (byte cell : genome) {
+			if (App.isPiece(cell) == true) {
+				pieces++;
+			}
+		}
+
+		return pieces;
+	}
+}
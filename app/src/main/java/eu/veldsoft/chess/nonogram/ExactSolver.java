@@ -0,0 +1,344 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Backtracking search for a perfect covering: every one pixel attacked at least twice and every zero pixel attacked at
+ * most once. The zero pixels are decided in row-major order, each as empty or as one of the pieces. After every
+ * decision the pixels it can influence get bounds on their final counters, with the blocking rules of App.beaten:
+ *
+ * - a one pixel needs at least two directions in which an attacker is still possible;
+ * - an empty zero pixel may have at most one direction in which an attacker is already certain.
+ *
+ * In every line direction only the first non-empty cell can attack, so each direction (and each knight offset)
+ * contributes at most one attack. The first levels of the tree are split across a fork-join pool. When the time
+ * budget runs out the deepest boards seen so far, undecided cells left empty, score badly, so a greedy covering is
+ * offered as well and the better of them is returned.
+ */
+class ExactSolver {
+	static enum Status {
+		PERFECT, INFEASIBLE, BUDGET;
+	}
+
+	/* Levels of the tree which are forked as separate tasks. */
+	private static final int SPLIT = 3;
+
+	private static final byte[] VALUES = { App.EMPTY, (byte) Cell.KING.ordinal(), (byte) Cell.QUEEN.ordinal(),
+			(byte) Cell.ROOK.ordinal(), (byte) Cell.BISHOP.ordinal(), (byte) Cell.KNIGHT.ordinal(), };
+
+	private static final byte KING = (byte) Cell.KING.ordinal();
+
+	private static final byte QUEEN = (byte) Cell.QUEEN.ordinal();
+
+	private static final byte KNIGHT = (byte) Cell.KNIGHT.ordinal();
+
+	private final AttackTable table;
+
+	private final ForkJoinPool pool;
+
+	/* Zero pixels in the order they are decided, and the place of every cell in that order. */
+	private final int[] order;
+
+	private final int[] position;
+
+	private long deadline;
+
+	private volatile boolean stop = false;
+
+	private volatile boolean expired = false;
+
+	private volatile int deepest = -1;
+
+	private byte[] best;
+
+	private int score;
+
+	/* Set with the perfect board, so a deadline passing in another branch at the same time does not hide it. */
+	private boolean found = false;
+
+	private Status status = null;
+
+	private class Search extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final byte[] genome;
+
+		private final int depth;
+
+		Search(byte[] genome, int depth) {
+			this.genome = genome;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			search(genome, depth);
+		}
+	}
+
+	/* The search as one of the solvers of App, with --time seconds of budget. */
+	static class Adapter implements Solver {
+		private Status status = null;
+
+		@Override
+		public byte[] solve(AttackTable table, Options options, ForkJoinPool pool) {
+			ExactSolver solver = new ExactSolver(table, pool);
+			byte[] genome = solver.solve((long) (options.get("time", 60D) * 1e9));
+			status = solver.status();
+			System.err.println("Exact search: " + status);
+
+			return genome;
+		}
+
+		@Override
+		public boolean perfect() {
+			return status == Status.PERFECT;
+		}
+	}
+
+	ExactSolver(AttackTable table, ForkJoinPool pool) {
+		this.table = table;
+		this.pool = pool;
+
+		position = new int[table.size()];
+		List<Integer> zeros = new ArrayList<>();
+		for (int k = 0; k < table.size(); k++) {
+			position[k] = -1;
+			if (table.pixels[k] == 0) {
+				position[k] = zeros.size();
+				zeros.add(k);
+			}
+		}
+
+		order = new int[zeros.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = zeros.get(i);
+		}
+	}
+
+	private boolean decided(int index, int depth) {
+		return position[index] < depth;
+	}
+
+	private boolean adjacent(int first, int second) {
+		return Math.abs(table.rows[first] - table.rows[second]) <= 1
+				&& Math.abs(table.columns[first] - table.columns[second]) <= 1;
+	}
+
+	/* True when the pixel can still satisfy its constraint. */
+	private boolean bounded(byte[] genome, int depth, int pixel) {
+		int lower = 0;
+		int upper = 0;
+
+		for (Cell line : new Cell[] { Cell.ROOK, Cell.BISHOP }) {
+			byte slider = (byte) line.ordinal();
+
+			int[] rays = table.rays(pixel, line);
+			for (int r = 0; r < rays.length; r += rays[r] + 1) {
+				for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+					int cell = rays[t];
+
+					/* An occupied cell blocks everything behind it. */
+					if (table.pixels[cell] == 1) {
+						break;
+					}
+
+					if (decided(cell, depth) == false) {
+						upper++;
+						break;
+					}
+
+					byte value = genome[cell];
+					if (value == App.EMPTY) {
+						continue;
+					}
+
+					if (value == QUEEN || value == slider || (value == KING && adjacent(pixel, cell) == true)) {
+						lower++;
+						upper++;
+					}
+					break;
+				}
+			}
+		}
+
+		int[] rays = table.rays(pixel, Cell.KNIGHT);
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			int cell = rays[r + 1];
+
+			if (table.pixels[cell] == 1) {
+				continue;
+			}
+
+			if (decided(cell, depth) == false) {
+				upper++;
+			} else if (genome[cell] == KNIGHT) {
+				lower++;
+				upper++;
+			}
+		}
+
+		if (table.pixels[pixel] == 1) {
+			return upper >= 2;
+		}
+
+		return lower <= 1;
+	}
+
+	/* Check the pixels whose bounds the decision of the cell can change. */
+	private boolean consistent(byte[] genome, int depth, int index) {
+		if (genome[index] == App.EMPTY && bounded(genome, depth, index) == false) {
+			return false;
+		}
+
+		int[] rays = table.rays(index, Cell.QUEEN);
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+				int cell = rays[t];
+
+				if (table.pixels[cell] == 1) {
+					if (bounded(genome, depth, cell) == false) {
+						return false;
+					}
+					break;
+				}
+
+				/* Anything behind an undecided cell or a piece does not see the decided cell. */
+				if (decided(cell, depth) == false || genome[cell] != App.EMPTY) {
+					break;
+				}
+
+				if (bounded(genome, depth, cell) == false) {
+					return false;
+				}
+			}
+		}
+
+		rays = table.rays(index, Cell.KNIGHT);
+		for (int r = 0; r < rays.length; r += rays[r] + 1) {
+			int cell = rays[r + 1];
+
+			if (table.pixels[cell] == 0 && (decided(cell, depth) == false || genome[cell] != App.EMPTY)) {
+				continue;
+			}
+
+			if (bounded(genome, depth, cell) == false) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean perfect(byte[] genome) {
+		int[] counters = App.beaten(genome, table);
+		for (int k = 0; k < genome.length; k++) {
+			if (table.pixels[k] == 1 && counters[k] < 2) {
+				return false;
+			}
+			if (table.pixels[k] == 0 && counters[k] > 1) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private synchronized void offer(byte[] genome, boolean perfect) {
+		int fitness = App.fitness(genome, table);
+		if (found == true) {
+			return;
+		}
+
+		if (perfect == true || fitness > score) {
+			best = genome.clone();
+			score = fitness;
+			found = perfect;
+		}
+	}
+
+	private void search(byte[] genome, int depth) {
+		if (stop == true) {
+			return;
+		}
+		if (System.nanoTime() > deadline) {
+			expired = true;
+			stop = true;
+			return;
+		}
+
+		/* Every new depth record is a candidate for the best board so far. */
+		if (depth > deepest) {
+			deepest = depth;
+			offer(genome, false);
+		}
+
+		if (depth == order.length) {
+			if (perfect(genome) == true) {
+				offer(genome, true);
+				stop = true;
+			}
+			return;
+		}
+
+		int index = order[depth];
+
+		if (pool != null && depth < SPLIT) {
+			List<Search> tasks = new ArrayList<>();
+			for (byte value : VALUES) {
+				byte[] child = genome.clone();
+				child[index] = value;
+				if (consistent(child, depth + 1, index) == true) {
+					tasks.add(new Search(child, depth + 1));
+				}
+			}
+			RecursiveAction.invokeAll(tasks);
+			return;
+		}
+
+		for (byte value : VALUES) {
+			genome[index] = value;
+			if (consistent(genome, depth + 1, index) == true) {
+				search(genome, depth + 1);
+			}
+			if (stop == true) {
+				break;
+			}
+		}
+		genome[index] = App.EMPTY;
+	}
+
+	/* Search for at most the given time. Without a pool the search runs in the calling thread. */
+	byte[] solve(long nanoseconds) {
+		byte[] genome = App.emptyOnly(table.image);
+		best = genome.clone();
+		score = App.fitness(genome, table);
+		deadline = System.nanoTime() + nanoseconds;
+
+		if (pool == null) {
+			search(genome, 0);
+		} else {
+			pool.invoke(new Search(genome, 0));
+		}
+
+		if (found == true) {
+			status = Status.PERFECT;
+		} else if (expired == true) {
+			status = Status.BUDGET;
+			offer(GreedyCover.build(table, RandomStreams.current()), false);
+		} else {
+			status = Status.INFEASIBLE;
+		}
+
+		return best.clone();
+	}
+
+	Status status() {
+		return status;
+	}
+}
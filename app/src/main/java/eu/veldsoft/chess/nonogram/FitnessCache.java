@@ -0,0 +1,170 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded fitness cache keyed by the Zobrist hash of the genome. The entries are split into segments by the low bits
+ * of the key, every segment with its own lock and CLOCK eviction: the hand skips and clears entries which were read
+ * since it last passed them and evicts the first one which was not. The keys are found through a primitive open
+ * addressing index, so a lookup neither boxes the key nor allocates.
+ */
+class FitnessCache {
+	static final long MISS = Long.MIN_VALUE;
+
+	private static final int SEGMENTS = 16;
+
+	private static class Segment {
+		private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+		private final long[] keys;
+
+		private final int[] values;
+
+		private final boolean[] referenced;
+
+		/* Open addressing index with linear probing, the slot of every key plus one, and zero for a free place. */
+		private final int[] index;
+
+		private final int shift;
+
+		private int size = 0;
+
+		private int hand = 0;
+
+		Segment(int capacity) {
+			keys = new long[capacity];
+			values = new int[capacity];
+			referenced = new boolean[capacity];
+
+			/* At most half full, so the probe sequences stay short. */
+			index = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+			shift = 64 - Integer.numberOfTrailingZeros(index.length);
+		}
+
+		/* The low bits of the key select the segment, so the place is taken from the high bits of the product. */
+		private int home(long key) {
+			return (int) ((key * GOLDEN) >>> shift);
+		}
+
+		/* The place of the key in the index, or the free place where the probe for it ended. */
+		private int locate(long key) {
+			int mask = index.length - 1;
+			int place = home(key);
+			while (index[place] != 0 && keys[index[place] - 1] != key) {
+				place = (place + 1) & mask;
+			}
+
+			return place;
+		}
+
+		/* Shift back the following entries of the probe sequence, so no search stops at the freed place. */
+		private void remove(int place) {
+			int mask = index.length - 1;
+			for (int next = (place + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+				int home = home(keys[index[next] - 1]);
+				if (((next - home) & mask) >= ((next - place) & mask)) {
+					index[place] = index[next];
+					place = next;
+				}
+			}
+
+			index[place] = 0;
+		}
+
+		synchronized long get(long key) {
+			int slot = index[locate(key)] - 1;
+			if (slot < 0) {
+				return MISS;
+			}
+
+			referenced[slot] = true;
+			return values[slot];
+		}
+
+		/* True when an older entry was evicted. */
+		synchronized boolean put(long key, int value) {
+			int place = locate(key);
+			if (index[place] != 0) {
+				values[index[place] - 1] = value;
+				return false;
+			}
+
+			boolean evicted = false;
+			int slot = size;
+			if (size < keys.length) {
+				size++;
+			} else {
+				while (referenced[hand] == true) {
+					referenced[hand] = false;
+					hand = (hand + 1) % keys.length;
+				}
+
+				slot = hand;
+				hand = (hand + 1) % keys.length;
+				remove(locate(keys[slot]));
+				place = locate(key);
+				evicted = true;
+			}
+
+			keys[slot] = key;
+			values[slot] = value;
+			referenced[slot] = false;
+			index[place] = slot + 1;
+
+			return evicted;
+		}
+	}
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	FitnessCache(int capacity) {
+		for (int s = 0; s < SEGMENTS; s++) {
+			segments[s] = new Segment(Math.max(1, capacity / SEGMENTS));
+		}
+	}
+
+	private Segment segment(long key) {
+		return segments[(int) key & (SEGMENTS - 1)];
+	}
+
+	/* The cached fitness, or MISS. */
+	long get(long key) {
+		long value = segment(key).get(key);
+		if (value == MISS) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+
+		return value;
+	}
+
+	void put(long key, int value) {
+		if (segment(key).put(key, value) == true) {
+			evictions.increment();
+		}
+	}
+
+	long hits() {
+		return hits.sum();
+	}
+
+	long misses() {
+		return misses.sum();
+	}
+
+	long evictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "hits " + hits() + ", misses " + misses() + ", evictions " + evictions();
+	}
+}
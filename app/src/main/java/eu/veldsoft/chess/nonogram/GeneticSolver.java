@@ -0,0 +1,70 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.Population;
+
+/*
+ * The genetic algorithm, on a single population or on islands, resumed from the checkpoint of App when there is one.
+ */
+class GeneticSolver implements Solver {
+	@Override
+	public byte[] solve(AttackTable table, Options options, ForkJoinPool pool) {
+		Checkpoint.State state = App.checkpoint == null ? null : App.checkpoint.resumed();
+		if (state != null) {
+			if (state.populations.length != options.get("islands", 1)) {
+				throw new IllegalArgumentException("Checkpoint has " + state.populations.length + " populations.");
+			}
+			System.err.println("Resumed at generation: " + state.generation);
+		}
+
+		Chromosome fittest = null;
+		Stopping stopping = App.stopping(table, options);
+		if (state != null) {
+			stopping.resume(state.progress);
+		}
+		if (options.get("islands", 1) > 1) {
+			Supplier<Population> populations = () -> App.population(table, pool);
+			if (state != null) {
+				Iterator<Population> resumed = Arrays.asList(state.populations).iterator();
+				populations = resumed::next;
+			}
+
+			IslandModel model = new IslandModel(options.get("islands", 1), options.get("migration", 50),
+					options.get("migrants", 2),
+					IslandModel.Topology.valueOf(options.get("topology", "ring").toUpperCase()),
+					() -> App.algorithm(table, null), populations);
+			if (state != null) {
+				model.resume(state);
+			}
+			model.checkpoint(App.checkpoint);
+			fittest = model.evolve(stopping);
+		} else {
+			ParallelGeneticAlgorithm algorithm = App.algorithm(table, pool);
+			algorithm.checkpoint(App.checkpoint);
+
+			Population initial = null;
+			if (state == null) {
+				initial = App.population(table, pool);
+			} else {
+				RandomStreams.current().setSeed(state.seeds[0]);
+				algorithm.generation(state.generation);
+				initial = state.populations[0];
+			}
+
+			fittest = algorithm.evolve(initial, stopping).getFittestChromosome();
+			System.err.println("Generations: " + algorithm.getGenerationsEvolved());
+		}
+		System.err.println("Stopped by: " + stopping.fired());
+
+		if (table.cache != null) {
+			System.err.println("Fitness cache: " + table.cache);
+		}
+
+		return ((CellChromosome) fittest).genome();
+	}
+}
@@ -0,0 +1,86 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Randomized greedy set cover over the coverage index. The one pixels are visited in a random order, and a pixel
+ * attacked less than twice gets the placement of one of the best gains among a sample of its placements. Placements
+ * which over-attack a zero pixel are never made, so every seed is free of harmful and unused pieces. The random order,
+ * the sample and the choice among the best few make the seeds differ from each other.
+ */
+class GreedyCover {
+	/* Placements of a pixel which are tried, and the best of them among which one is chosen. */
+	private static final int SAMPLE = 16;
+
+	private static final int CHOICES = 3;
+
+	static byte[] build(AttackTable table, RandomGenerator random) {
+		CoverageIndex index = table.coverage();
+		Evaluator evaluator = new Evaluator(App.emptyOnly(table.image), table);
+
+		int count = 0;
+		int[] ones = new int[table.size()];
+		for (int k = 0; k < table.size(); k++) {
+			if (table.pixels[k] == 1) {
+				ones[count++] = k;
+			}
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int swap = ones[i];
+			ones[i] = ones[j];
+			ones[j] = swap;
+		}
+
+		int[] best = new int[CHOICES];
+		int[] gains = new int[CHOICES];
+		for (int o = 0; o < count; o++) {
+			int one = ones[o];
+			int placements = index.count(one);
+
+			/* Every placement attacks the pixel once, so two of them may be needed. */
+			for (int a = 0; a < 2 && evaluator.counter(one) < 2; a++) {
+				int chosen = 0;
+				for (int s = 0; s < SAMPLE && s < placements; s++) {
+					int placement = index.placement(one, placements <= SAMPLE ? s : random.nextInt(placements));
+					int cell = CoverageIndex.cell(placement);
+					if (evaluator.get(cell) != App.EMPTY) {
+						continue;
+					}
+
+					int score = evaluator.score();
+					evaluator.set(cell, CoverageIndex.piece(placement));
+					int gain = evaluator.score() - score;
+					boolean harmful = evaluator.overbeaten() > 0;
+					evaluator.set(cell, App.EMPTY);
+					/* The first attack on a pixel does not change the score yet, so only a loss is refused. */
+					if (harmful == true || gain < 0) {
+						continue;
+					}
+
+					/* Keep the best gains in descending order. */
+					int c = Math.min(chosen, CHOICES - 1);
+					if (chosen == CHOICES && gain <= gains[c]) {
+						continue;
+					}
+					for (; c > 0 && gains[c - 1] < gain; c--) {
+						gains[c] = gains[c - 1];
+						best[c] = best[c - 1];
+					}
+					gains[c] = gain;
+					best[c] = placement;
+					chosen = Math.min(chosen + 1, CHOICES);
+				}
+
+				if (chosen == 0) {
+					break;
+				}
+
+				int placement = best[random.nextInt(chosen)];
+				evaluator.set(CoverageIndex.cell(placement), CoverageIndex.piece(placement));
+			}
+		}
+
+		return evaluator.genome().clone();
+	}
+}
@@ -0,0 +1,132 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.BitSet;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.MutationPolicy;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Repairs one deficit of the board, taken from the live sets of the evaluator. Either a piece attacking an
+ * over-attacked zero pixel is removed, or a piece is put on a free cell from which it attacks an under-attacked one
+ * pixel. Such a piece always hits a one pixel, so it is never unused, and a placement which makes the new piece
+ * harmful is taken back and another one is tried.
+ */
+class GuidedMutation implements MutationPolicy {
+	private static final int ATTEMPTS = 8;
+
+	private final AttackTable table;
+
+	GuidedMutation(AttackTable table) {
+		this.table = table;
+	}
+
+	/* Uniformly random element of the set. */
+	private static int random(BitSet set, int size, RandomGenerator random) {
+		int index = set.nextSetBit(0);
+		for (int r = random.nextInt(size); r > 0; r--) {
+			index = set.nextSetBit(index + 1);
+		}
+
+		return index;
+	}
+
+	/* Remove a random piece whose rays reach the index, with the same break rules as App.beaten. */
+	private long remove(Evaluator evaluator, int index, RandomGenerator random, long hash) {
+		int[] attackers = new int[32];
+		int size = 0;
+
+		for (Cell piece : App.PIECES_ARRAY) {
+			int[] rays = table.rays(index, piece);
+			for (int r = 0; r < rays.length; r += rays[r] + 1) {
+				for (int t = r + 1, end = r + rays[r]; t <= end; t++) {
+					int target = rays[t];
+
+					if (evaluator.get(target) == piece.ordinal()) {
+						attackers[size++] = target;
+					}
+
+					if (evaluator.get(target) != App.EMPTY) {
+						break;
+					}
+				}
+			}
+		}
+
+		if (size == 0) {
+			return hash;
+		}
+
+		int attacker = attackers[random.nextInt(size)];
+		hash ^= table.key(attacker, evaluator.get(attacker)) ^ table.key(attacker, App.EMPTY);
+		evaluator.set(attacker, App.EMPTY);
+
+		return hash;
+	}
+
+	/* Put a random piece on a free cell of a random ray of the index, before the ray is blocked. */
+	private long place(Evaluator evaluator, int index, RandomGenerator random, long hash) {
+		for (int a = 0; a < ATTEMPTS; a++) {
+			Cell piece = App.PIECES_ARRAY[random.nextInt(App.PIECES_ARRAY.length)];
+			int[] rays = table.rays(index, piece);
+
+			int count = 0;
+			for (int r = 0; r < rays.length; r += rays[r] + 1) {
+				count++;
+			}
+			if (count == 0) {
+				continue;
+			}
+
+			int start = 0;
+			for (int c = random.nextInt(count); c > 0; c--) {
+				start += rays[start] + 1;
+			}
+
+			int free = 0;
+			for (int t = start + 1, end = start + rays[start]; t <= end && evaluator.get(rays[t]) == App.EMPTY; t++) {
+				free++;
+			}
+			if (free == 0) {
+				continue;
+			}
+
+			int target = rays[start + 1 + random.nextInt(free)];
+			evaluator.set(target, (byte) piece.ordinal());
+			if (App.harmful(target, evaluator, table) == true) {
+				evaluator.set(target, App.EMPTY);
+				continue;
+			}
+
+			return hash ^ table.key(target, App.EMPTY) ^ table.key(target, (byte) piece.ordinal());
+		}
+
+		return hash;
+	}
+
+	@Override
+	public Chromosome mutate(Chromosome original) throws MathIllegalArgumentException {
+		CellChromosome parent = (CellChromosome) original;
+
+		/* The parent keeps its sets, so the other children of it only copy them. */
+		Evaluator source = parent.evaluator();
+		source.deficits();
+		Evaluator evaluator = new Evaluator(source);
+
+		RandomGenerator random = RandomStreams.current();
+		int under = evaluator.underbeaten().cardinality();
+		int over = evaluator.overattacked().cardinality();
+
+		long hash = parent.hash();
+		if (over > 0 && (under == 0 || random.nextBoolean() == true)) {
+			hash = remove(evaluator, random(evaluator.overattacked(), over, random), random, hash);
+		} else if (under > 0) {
+			hash = place(evaluator, random(evaluator.underbeaten(), under, random), random, hash);
+		}
+
+		return new CellChromosome(evaluator, table, hash);
+	}
+}
@@ -0,0 +1,330 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/*
+ * Image loaders. The format is recognized by its first bytes:
+ *
+ * - "BITS" packed binary: big-endian rows and columns, then the pixels row after row, one bit each, most significant
+ * bit first;
+ * - "P1" and "P4" portable bitmaps, where black is one;
+ * - PNG, where opaque pixels darker than the middle gray are one;
+ * - anything else is the text format, one line of zeros and ones per row.
+ *
+ * Text and packed files are scanned through memory mapped buffers, without copying them to the heap.
+ */
+class Images {
+	/* File name extensions which batch runs pick up. */
+	static final List<String> EXTENSIONS = Arrays.asList(".bin", ".bits", ".pbm", ".png");
+
+	private static final byte[] BITS = { 'B', 'I', 'T', 'S' };
+
+	private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G' };
+
+	/* Mapped window size, so files larger than a single buffer can be scanned. */
+	private static final long WINDOW = 1L << 30;
+
+	private static final int THRESHOLD = 128;
+
+	/* Growable packed rows, filled pixel by pixel. */
+	private static class Packer {
+		private long[] bits = new long[1024];
+
+		private int[] widths = new int[64];
+
+		private long size = 0;
+
+		private int rows = 0;
+
+		private int width = 0;
+
+		void add(int pixel) {
+			if ((size >>> 6) >= bits.length) {
+				bits = Arrays.copyOf(bits, bits.length * 2);
+			}
+			if (pixel != 0) {
+				bits[(int) (size >>> 6)] |= 1L << (size & 63);
+			}
+
+			size++;
+			width++;
+		}
+
+		void end() {
+			if (rows == widths.length) {
+				widths = Arrays.copyOf(widths, widths.length * 2);
+			}
+
+			widths[rows++] = width;
+			width = 0;
+		}
+
+		Bitmap bitmap() {
+			return new Bitmap(Arrays.copyOf(bits, (int) ((size + Long.SIZE - 1) / Long.SIZE)),
+					Arrays.copyOf(widths, rows));
+		}
+	}
+
+	/* Extension of a supported image file, or null. */
+	static String extension(String name) {
+		for (String extension : EXTENSIONS) {
+			if (name.toLowerCase().endsWith(extension) == true) {
+				return extension;
+			}
+		}
+
+		return null;
+	}
+
+	private static boolean starts(byte[] head, byte[] magic) {
+		if (head.length < magic.length) {
+			return false;
+		}
+
+		for (int i = 0; i < magic.length; i++) {
+			if (head[i] != magic[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static byte[] head(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			while (buffer.hasRemaining() == true && channel.read(buffer) >= 0) {
+			}
+
+			return Arrays.copyOf(buffer.array(), buffer.position());
+		}
+	}
+
+	static Bitmap load(Path file) throws IOException {
+		byte[] head = head(file);
+
+		if (starts(head, BITS) == true) {
+			return packed(file);
+		}
+		if (starts(head, new byte[] { 'P', '1' }) == true || starts(head, new byte[] { 'P', '4' }) == true) {
+			return pbm(file);
+		}
+		if (starts(head, PNG) == true) {
+			return raster(file);
+		}
+
+		return text(file);
+	}
+
+	/* Lines of zeros and ones, ended by LF or CRLF. A last line without an end of line is still a row. */
+	private static Bitmap text(Path file) throws IOException {
+		Packer packer = new Packer();
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			byte last = '\n';
+
+			for (long position = 0; position < length; position += WINDOW) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW, length - position));
+
+				while (buffer.hasRemaining() == true) {
+					byte c = buffer.get();
+					last = c;
+
+					if (c == '0' || c == '1') {
+						packer.add(c - '0');
+					} else if (c == '\n') {
+						packer.end();
+					} else if (c != '\r') {
+						throw new IOException("Unexpected character " + (char) c + " in " + file + ".");
+					}
+				}
+			}
+
+			if (last != '\n') {
+				packer.end();
+			}
+		}
+
+		return packer.bitmap();
+	}
+
+	private static Bitmap packed(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BITS.length + 8);
+			header.order(ByteOrder.BIG_ENDIAN);
+			header.position(BITS.length);
+			int rows = header.getInt();
+			int columns = header.getInt();
+
+			long size = (long) rows * columns;
+			long[] bits = new long[(int) ((size + Long.SIZE - 1) / Long.SIZE)];
+
+			/* Bytes are most significant bit first, words are least significant bit first. */
+			long p = 0;
+			for (long position = BITS.length + 8; p < size; position += WINDOW) {
+				if (position >= channel.size()) {
+					throw new IOException("Truncated packed image " + file + ".");
+				}
+
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW, channel.size() - position));
+
+				while (buffer.hasRemaining() == true && p < size) {
+					int b = Integer.reverse(buffer.get() & 0xFF) >>> 24;
+					bits[(int) (p >>> 6)] |= (long) b << (p & 63);
+					p += 8;
+				}
+			}
+
+			/* Padding bits of the last byte are not pixels. */
+			if ((size & 63) != 0) {
+				bits[bits.length - 1] &= (1L << (size & 63)) - 1;
+			}
+
+			int[] widths = new int[rows];
+			Arrays.fill(widths, columns);
+			return new Bitmap(bits, widths);
+		}
+	}
+
+	static void save(Bitmap bitmap, Path file) throws IOException {
+		int columns = bitmap.rows() == 0 ? 0 : bitmap.width(0);
+		for (int i = 0; i < bitmap.rows(); i++) {
+			if (bitmap.width(i) != columns) {
+				throw new IOException("Packed format needs rows of equal length.");
+			}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file),
+				1 << 16))) {
+			out.write(BITS);
+			out.writeInt(bitmap.rows());
+			out.writeInt(columns);
+
+			int[] pixels = new int[columns];
+			int b = 0;
+			int count = 0;
+			for (int i = 0; i < bitmap.rows(); i++) {
+				bitmap.row(i, pixels);
+				for (int j = 0; j < columns; j++) {
+					b = (b << 1) | pixels[j];
+					if (++count == 8) {
+						out.write(b);
+						b = 0;
+						count = 0;
+					}
+				}
+			}
+			if (count > 0) {
+				out.write(b << (8 - count));
+			}
+		}
+	}
+
+	private static int skip(byte[] data, int position) {
+		while (position < data.length) {
+			if (data[position] == '#') {
+				while (position < data.length && data[position] != '\n') {
+					position++;
+				}
+			} else if (Character.isWhitespace(data[position]) == true) {
+				position++;
+			} else {
+				break;
+			}
+		}
+
+		return position;
+	}
+
+	private static int number(byte[] data, int[] position) throws IOException {
+		int p = skip(data, position[0]);
+		int value = 0;
+		int start = p;
+		while (p < data.length && data[p] >= '0' && data[p] <= '9') {
+			value = value * 10 + (data[p++] - '0');
+		}
+		if (p == start) {
+			throw new IOException("Broken portable bitmap header.");
+		}
+
+		position[0] = p;
+		return value;
+	}
+
+	private static Bitmap pbm(Path file) throws IOException {
+		byte[] data = Files.readAllBytes(file);
+		boolean raw = data[1] == '4';
+
+		int[] position = { 2 };
+		int columns = number(data, position);
+		int rows = number(data, position);
+
+		Packer packer = new Packer();
+		int p = position[0];
+		if (raw == true) {
+			/* Exactly one whitespace byte ends the header, every row starts on a new byte. */
+			p++;
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					packer.add((data[p + (j >>> 3)] >>> (7 - (j & 7))) & 1);
+				}
+				p += (columns + 7) >>> 3;
+				packer.end();
+			}
+		} else {
+			/* Plain pixels may or may not be separated by whitespace. */
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					p = skip(data, p);
+					packer.add(data[p++] - '0');
+				}
+				packer.end();
+			}
+		}
+
+		return packer.bitmap();
+	}
+
+	private static Bitmap raster(Path file) throws IOException {
+		BufferedImage image = ImageIO.read(file.toFile());
+		if (image == null) {
+			throw new IOException("Unsupported image " + file + ".");
+		}
+
+		Packer packer = new Packer();
+		for (int i = 0; i < image.getHeight(); i++) {
+			for (int j = 0; j < image.getWidth(); j++) {
+				int rgb = image.getRGB(j, i);
+
+				/* Transparent pixels are background. */
+				if ((rgb >>> 24) < THRESHOLD) {
+					packer.add(0);
+					continue;
+				}
+
+				int gray = (((rgb >>> 16) & 0xFF) * 299 + ((rgb >>> 8) & 0xFF) * 587 + (rgb & 0xFF) * 114) / 1000;
+				packer.add(gray < THRESHOLD ? 1 : 0);
+			}
+			packer.end();
+		}
+
+		return packer.bitmap();
+	}
+}
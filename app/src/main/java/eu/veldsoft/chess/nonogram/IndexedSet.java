@@ -0,0 +1,62 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Set of indices below a fixed bound with constant time add, remove and uniform random choice. Elements are kept
+ * densely in one array, and every index knows its place in it.
+ */
+class IndexedSet {
+	private final int[] elements;
+
+	private final int[] positions;
+
+	private int size = 0;
+
+	IndexedSet(int bound) {
+		elements = new int[bound];
+		positions = new int[bound];
+		Arrays.fill(positions, -1);
+	}
+
+	boolean contains(int index) {
+		return positions[index] != -1;
+	}
+
+	void add(int index) {
+		if (contains(index) == true) {
+			return;
+		}
+
+		elements[size] = index;
+		positions[index] = size;
+		size++;
+	}
+
+	void remove(int index) {
+		if (contains(index) == false) {
+			return;
+		}
+
+		/* The last element takes the place of the removed one. */
+		size--;
+		int last = elements[size];
+		elements[positions[index]] = last;
+		positions[last] = positions[index];
+		positions[index] = -1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int get(int position) {
+		return elements[position];
+	}
+
+	int random(RandomGenerator random) {
+		return elements[random.nextInt(size)];
+	}
+}
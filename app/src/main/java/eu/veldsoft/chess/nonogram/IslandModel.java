@@ -0,0 +1,197 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ElitisticListPopulation;
+import org.apache.commons.math3.genetics.FixedGenerationCount;
+import org.apache.commons.math3.genetics.GeneticAlgorithm;
+import org.apache.commons.math3.genetics.Population;
+
+/*
+ * Independent populations evolved on their own threads. After every interval of generations the best individuals of
+ * each island replace the worst individuals of its neighbour, chosen by the topology. Every island draws from its own
+ * random stream, whichever thread runs its epoch.
+ */
+class IslandModel {
+	static enum Topology {
+		RING, RANDOM;
+	}
+
+	private final int interval;
+
+	private final int migrants;
+
+	private final Topology topology;
+
+	private final GeneticAlgorithm[] algorithms;
+
+	private final Population[] populations;
+
+	private final RandomStreams.Stream[] streams;
+
+	private Checkpoint checkpoint = null;
+
+	private int generation = 0;
+
+	IslandModel(int islands, int interval, int migrants, Topology topology, Supplier<GeneticAlgorithm> algorithm,
+			Supplier<Population> population) {
+		this.interval = interval;
+		this.migrants = migrants;
+		this.topology = topology;
+
+		algorithms = new GeneticAlgorithm[islands];
+		populations = new Population[islands];
+		streams = new RandomStreams.Stream[islands];
+		for (int i = 0; i < islands; i++) {
+			streams[i] = RandomStreams.current().split();
+			algorithms[i] = algorithm.get();
+			if (algorithms[i] instanceof ParallelGeneticAlgorithm) {
+				((ParallelGeneticAlgorithm) algorithms[i]).island(i);
+			}
+
+			RandomStreams.Stream previous = RandomStreams.use(streams[i]);
+			populations[i] = population.get();
+			RandomStreams.use(previous);
+		}
+	}
+
+	void checkpoint(Checkpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	/* Continue from the populations and streams of a checkpoint, which were used to build the islands. */
+	void resume(Checkpoint.State state) {
+		RandomStreams.current().setSeed(state.seeds[0]);
+		for (int i = 0; i < streams.length; i++) {
+			streams[i].setSeed(state.seeds[i + 1]);
+			if (algorithms[i] instanceof ParallelGeneticAlgorithm) {
+				((ParallelGeneticAlgorithm) algorithms[i]).generation(state.generation);
+			}
+		}
+		generation = state.generation;
+	}
+
+	/* The migration of the epoch is done, so the next epoch starts from exactly this state. */
+	private void save(Stopping stopping) {
+		long[] seeds = new long[streams.length + 1];
+		seeds[0] = Checkpoint.reseed(RandomStreams.current());
+		for (int i = 0; i < streams.length; i++) {
+			seeds[i + 1] = Checkpoint.reseed(streams[i]);
+		}
+
+		checkpoint.save(generation, seeds, stopping.progress(), populations);
+	}
+
+	private static List<Chromosome> sorted(Population population) {
+		List<Chromosome> chromosomes = new ArrayList<>();
+		for (Chromosome chromosome : population) {
+			chromosomes.add(chromosome);
+		}
+
+		Collections.sort(chromosomes, Collections.reverseOrder());
+		return chromosomes;
+	}
+
+	/* Chromosomes are never changed after construction, so the migrants are shared between islands. */
+	private void migrate() {
+		List<List<Chromosome>> islands = new ArrayList<>();
+		for (Population population : populations) {
+			islands.add(sorted(population));
+		}
+
+		for (int i = 0; i < populations.length; i++) {
+			int source = (i + populations.length - 1) % populations.length;
+			if (topology == Topology.RANDOM) {
+				source = (i + 1 + RandomStreams.current().nextInt(populations.length - 1)) % populations.length;
+			}
+
+			List<Chromosome> target = new ArrayList<>(islands.get(i));
+			List<Chromosome> best = islands.get(source);
+			for (int m = 0; m < migrants && m < best.size() && m < target.size(); m++) {
+				target.set(target.size() - 1 - m, best.get(m));
+			}
+
+			populations[i] = new ElitisticListPopulation(target, populations[i].getPopulationLimit(),
+					((ElitisticListPopulation) populations[i]).getElitismRate());
+		}
+	}
+
+	private Population fittest() {
+		Population fittest = populations[0];
+		for (Population population : populations) {
+			if (population.getFittestChromosome().getFitness() > fittest.getFittestChromosome().getFitness()) {
+				fittest = population;
+			}
+		}
+
+		return fittest;
+	}
+
+	/*
+	 * The stopping condition is checked before the first epoch and between epochs, against the island with the
+	 * fittest individual. The last epoch is cut to the generations left, so the generation limit is kept exactly.
+	 */
+	Chromosome evolve(Stopping stopping) {
+		ExecutorService executor = Executors.newFixedThreadPool(populations.length);
+
+		try {
+			for (boolean done = stopping.check(fittest(), 0); done == false;) {
+				int epoch = Math.min(interval, stopping.remaining());
+				List<Callable<Population>> tasks = new ArrayList<>();
+				for (int i = 0; i < populations.length; i++) {
+					GeneticAlgorithm algorithm = algorithms[i];
+					Population population = populations[i];
+					RandomStreams.Stream stream = streams[i];
+					tasks.add(() -> {
+						RandomStreams.Stream previous = RandomStreams.use(stream);
+						try {
+							return algorithm.evolve(population, new FixedGenerationCount(epoch));
+						} finally {
+							RandomStreams.use(previous);
+						}
+					});
+				}
+
+				List<Future<Population>> results = executor.invokeAll(tasks);
+				for (int i = 0; i < populations.length; i++) {
+					populations[i] = results.get(i).get();
+				}
+
+				done = stopping.check(fittest(), epoch);
+				if (done == false) {
+					migrate();
+				}
+
+				generation += epoch;
+				if (done == false && checkpoint != null && checkpoint.due(generation - epoch, generation) == true) {
+					save(stopping);
+				}
+			}
+		} catch (InterruptedException | ExecutionException exception) {
+			throw new IllegalStateException(exception);
+		} finally {
+			executor.shutdown();
+		}
+
+		Chromosome fittest = null;
+		for (int i = 0; i < populations.length; i++) {
+			Chromosome best = populations[i].getFittestChromosome();
+			System.err.println("Island " + i + ": " + best.getFitness());
+			if (fittest == null || best.getFitness() > fittest.getFitness()) {
+				fittest = best;
+			}
+		}
+		System.err.println("Global best: " + fittest.getFitness());
+
+		return fittest;
+	}
+}
@@ -0,0 +1,84 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.BitSet;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Memetic improvement of a single individual: the repair of App.solve, followed by first-improvement hill climbing.
+ * A move changes one zero pixel to empty or to another piece, and it is kept when the score of the incremental
+ * evaluator grows. The climb stops after a budget of tried moves, or after a whole pass without an improvement.
+ *
+ * No random numbers are drawn. The scan starts at a cell given by the hash of the genome, so the individuals of a
+ * generation do not all climb from the top left corner, and the result does not depend on the thread running it.
+ */
+class LocalSearch {
+	private static final byte[] VALUES = { App.EMPTY, (byte) Cell.KING.ordinal(), (byte) Cell.QUEEN.ordinal(),
+			(byte) Cell.ROOK.ordinal(), (byte) Cell.BISHOP.ordinal(), (byte) Cell.KNIGHT.ordinal(), };
+
+	private final AttackTable table;
+
+	private final int steps;
+
+	LocalSearch(AttackTable table, int steps) {
+		this.table = table;
+		this.steps = steps;
+	}
+
+	private static void repair(Evaluator evaluator, AttackTable table) {
+		BitSet pending = new BitSet(evaluator.size());
+		for (int k = 0; k < evaluator.size(); k++) {
+			byte cell = evaluator.get(k);
+			if (App.isPiece(cell) == false) {
+				continue;
+			}
+
+			if (App.hitting(k, App.CELLS[cell], table) == false) {
+				evaluator.set(k, App.EMPTY);
+			} else {
+				pending.set(k);
+			}
+		}
+
+		App.removeHarmful(evaluator, pending, table, null);
+	}
+
+	private void climb(Evaluator evaluator, long hash) {
+		int size = evaluator.size();
+		int start = (int) Long.remainderUnsigned(hash, size);
+
+		/* Cells passed since the last improvement, so a whole pass without one ends the climb. */
+		int budget = steps;
+		for (int c = 0, unchanged = 0; unchanged < size && budget > 0; c++, unchanged++) {
+			int k = (start + c) % size;
+			if (table.pixels[k] != 0) {
+				continue;
+			}
+
+			byte previous = evaluator.get(k);
+			int score = evaluator.score();
+			for (int v = 0; v < VALUES.length && budget > 0; v++) {
+				if (VALUES[v] == previous) {
+					continue;
+				}
+
+				budget--;
+				evaluator.set(k, VALUES[v]);
+				if (evaluator.score() > score) {
+					unchanged = 0;
+					break;
+				}
+				evaluator.set(k, previous);
+			}
+		}
+	}
+
+	CellChromosome improve(CellChromosome original) {
+		Evaluator evaluator = new Evaluator(original.evaluator());
+
+		repair(evaluator, table);
+		climb(evaluator, original.hash());
+
+		return new CellChromosome(evaluator, table, table.hash(evaluator.genome()));
+	}
+}
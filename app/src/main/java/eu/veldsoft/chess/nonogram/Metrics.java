@@ -0,0 +1,109 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/*
+ * Measurements of one generation. Times are in nanoseconds. Diversity is the mean Hamming distance between two
+ * different individuals of the population. Allocated bytes are those of the thread which evolves the population and
+ * of the pool workers while they work for it, so other islands and other work in the process are not counted.
+ */
+class Metrics {
+	static interface Listener {
+		void generation(Metrics metrics);
+	}
+
+	/* Listener which writes every generation as a line of CSV, or of JSON for files ending in .jsonl. */
+	static class Writer implements Listener, Closeable {
+		private final PrintStream out;
+
+		private final boolean json;
+
+		Writer(Path file) throws IOException {
+			out = new PrintStream(Files.newOutputStream(file), false, "UTF-8");
+			json = file.getFileName().toString().endsWith(".jsonl");
+			if (json == false) {
+				out.println(String.join(",", NAMES));
+			}
+		}
+
+		@Override
+		public synchronized void generation(Metrics metrics) {
+			out.println(json == true ? metrics.json() : metrics.csv());
+		}
+
+		@Override
+		public synchronized void close() {
+			out.close();
+		}
+	}
+
+	private static final String[] NAMES = { "island", "generation", "best", "mean", "evaluations",
+			"evaluationsPerSecond", "selection", "crossover", "mutation", "evaluation", "total", "diversity",
+			"allocatedBytes", };
+
+	int island;
+
+	int generation;
+
+	double best;
+
+	double mean;
+
+	int evaluations;
+
+	long selection;
+
+	long crossover;
+
+	long mutation;
+
+	long evaluation;
+
+	long total;
+
+	double diversity;
+
+	long allocated;
+
+	double evaluationsPerSecond() {
+		return total == 0 ? 0 : evaluations * 1e9 / total;
+	}
+
+	private Object[] values() {
+		return new Object[] { island, generation, best, mean, evaluations, evaluationsPerSecond(), selection, crossover,
+				mutation, evaluation, total, diversity, allocated, };
+	}
+
+	private static String format(Object value) {
+		if (value instanceof Double) {
+			return String.format(Locale.ROOT, "%.3f", (Double) value);
+		}
+
+		return String.valueOf(value);
+	}
+
+	String csv() {
+		Object[] values = values();
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			line.append(i == 0 ? "" : ",").append(format(values[i]));
+		}
+
+		return line.toString();
+	}
+
+	String json() {
+		Object[] values = values();
+		StringBuilder line = new StringBuilder("{");
+		for (int i = 0; i < values.length; i++) {
+			line.append(i == 0 ? "" : ",").append('"').append(NAMES[i]).append("\":").append(format(values[i]));
+		}
+
+		return line.append('}').toString();
+	}
+}
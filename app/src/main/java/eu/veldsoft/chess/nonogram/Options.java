@@ -0,0 +1,60 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Command line split into positional arguments and --name=value options. An option given without a value is stored
+ * as "true".
+ */
+class Options {
+	private final List<String> positional = new ArrayList<>();
+
+	private final Map<String, String> named = new HashMap<>();
+
+	Options(String[] args) {
+		for (String arg : args) {
+			if (arg.startsWith("--") == false) {
+				positional.add(arg);
+				continue;
+			}
+
+			int index = arg.indexOf('=');
+			if (index == -1) {
+				named.put(arg.substring(2), "true");
+			} else {
+				named.put(arg.substring(2, index), arg.substring(index + 1));
+			}
+		}
+	}
+
+	String get(int index) {
+		if (index >= positional.size()) {
+			throw new IllegalArgumentException("Missing positional argument " + (index + 1) + ".");
+		}
+
+		return positional.get(index);
+	}
+
+	boolean has(String name) {
+		return named.containsKey(name);
+	}
+
+	String get(String name, String value) {
+		return named.getOrDefault(name, value);
+	}
+
+	int get(String name, int value) {
+		return named.containsKey(name) ? Integer.parseInt(named.get(name)) : value;
+	}
+
+	long get(String name, long value) {
+		return named.containsKey(name) ? Long.parseLong(named.get(name)) : value;
+	}
+
+	double get(String name, double value) {
+		return named.containsKey(name) ? Double.parseDouble(named.get(name)) : value;
+	}
+}
@@ -0,0 +1,342 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.math3.exception.MathIllegalArgumentException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ChromosomePair;
+import org.apache.commons.math3.genetics.CrossoverPolicy;
+import org.apache.commons.math3.genetics.ElitisticListPopulation;
+import org.apache.commons.math3.genetics.GeneticAlgorithm;
+import org.apache.commons.math3.genetics.MutationPolicy;
+import org.apache.commons.math3.genetics.Population;
+import org.apache.commons.math3.genetics.SelectionPolicy;
+import org.apache.commons.math3.genetics.StoppingCondition;
+
+/*
+ * Genetic algorithm which evaluates every new generation in parallel, before the selection of the next one asks for
+ * the fitness values. Fitness evaluation does not draw random numbers, so for the same random state the run is
+ * identical to the serial one. Without a pool the evaluation runs in the calling thread.
+ *
+ * The policies are wrapped with timers, so every generation can be reported to the listeners with its time split.
+ * In the memetic mode every offspring is improved by a local search before it is evaluated, on the same pool.
+ */
+class ParallelGeneticAlgorithm extends GeneticAlgorithm {
+	private static class Timer {
+		long nanoseconds = 0;
+
+		long take() {
+			long result = nanoseconds;
+			nanoseconds = 0;
+			return result;
+		}
+	}
+
+	private static class TimedSelection extends Timer implements SelectionPolicy {
+		private final SelectionPolicy policy;
+
+		TimedSelection(SelectionPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public ChromosomePair select(Population population) throws MathIllegalArgumentException {
+			long start = System.nanoTime();
+			ChromosomePair pair = policy.select(population);
+			nanoseconds += System.nanoTime() - start;
+			return pair;
+		}
+	}
+
+	private static class TimedCrossover extends Timer implements CrossoverPolicy {
+		private final CrossoverPolicy policy;
+
+		TimedCrossover(CrossoverPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public ChromosomePair crossover(Chromosome first, Chromosome second) throws MathIllegalArgumentException {
+			long start = System.nanoTime();
+			ChromosomePair pair = policy.crossover(first, second);
+			nanoseconds += System.nanoTime() - start;
+			return pair;
+		}
+	}
+
+	private static class TimedMutation extends Timer implements MutationPolicy {
+		private final MutationPolicy policy;
+
+		TimedMutation(MutationPolicy policy) {
+			this.policy = policy;
+		}
+
+		@Override
+		public Chromosome mutate(Chromosome original) throws MathIllegalArgumentException {
+			long start = System.nanoTime();
+			Chromosome chromosome = policy.mutate(original);
+			nanoseconds += System.nanoTime() - start;
+			return chromosome;
+		}
+	}
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	private final ForkJoinPool pool;
+
+	private final List<Metrics.Listener> listeners = new ArrayList<>();
+
+	/* Bytes allocated by the pool workers for this algorithm, as the pool may be shared. */
+	private final LongAdder pooled = new LongAdder();
+
+	private int island = 0;
+
+	private Checkpoint checkpoint = null;
+
+	private LocalSearch search = null;
+
+	private int generationsEvolved = 0;
+
+	/* Generations over all calls of evolve, as the island model evolves in epochs. */
+	private int generations = 0;
+
+	ParallelGeneticAlgorithm(CrossoverPolicy crossoverPolicy, double crossoverRate, MutationPolicy mutationPolicy,
+			double mutationRate, SelectionPolicy selectionPolicy, ForkJoinPool pool) throws OutOfRangeException {
+		super(new TimedCrossover(crossoverPolicy), crossoverRate, new TimedMutation(mutationPolicy), mutationRate,
+				new TimedSelection(selectionPolicy));
+		this.pool = pool;
+	}
+
+	void listen(Metrics.Listener listener) {
+		listeners.add(listener);
+	}
+
+	void island(int island) {
+		this.island = island;
+	}
+
+	/* Checkpoints of a single population, which draws from the stream of the calling thread. */
+	void checkpoint(Checkpoint checkpoint) {
+		this.checkpoint = checkpoint;
+	}
+
+	void memetic(LocalSearch search) {
+		this.search = search;
+	}
+
+	/* Continue the count of generations of a resumed run. */
+	void generation(int generations) {
+		this.generations = generations;
+	}
+
+	void evaluate(Population population) {
+		/* The same chromosome can be selected more than once, but it is enough to evaluate it once. */
+		Set<Chromosome> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Chromosome chromosome : population) {
+			unique.add(chromosome);
+		}
+
+		List<Chromosome> chromosomes = new ArrayList<>(unique);
+		if (pool == null) {
+			chromosomes.forEach(Chromosome::getFitness);
+		} else {
+			Thread caller = Thread.currentThread();
+			pool.submit(() -> chromosomes.parallelStream().forEach(
+					chromosome -> measured(caller, chromosome::getFitness))).join();
+		}
+	}
+
+	/* Replace the offspring with their improved versions. The elite carried over from the previous generation stays. */
+	private Population improve(Population previous, Population current) {
+		Set<Chromosome> old = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Chromosome chromosome : previous) {
+			old.add(chromosome);
+		}
+
+		Map<Chromosome, Chromosome> improved = Collections.synchronizedMap(new IdentityHashMap<>());
+		for (Chromosome chromosome : current) {
+			if (old.contains(chromosome) == false) {
+				improved.put(chromosome, chromosome);
+			}
+		}
+
+		List<Chromosome> offspring = new ArrayList<>(improved.keySet());
+		if (pool == null) {
+			offspring.forEach(chromosome -> improved.put(chromosome, search.improve((CellChromosome) chromosome)));
+		} else {
+			Thread caller = Thread.currentThread();
+			pool.submit(() -> offspring.parallelStream().forEach(chromosome -> measured(caller,
+					() -> improved.put(chromosome, search.improve((CellChromosome) chromosome))))).join();
+		}
+
+		List<Chromosome> chromosomes = new ArrayList<>();
+		for (Chromosome chromosome : current) {
+			chromosomes.add(improved.getOrDefault(chromosome, chromosome));
+		}
+
+		return new ElitisticListPopulation(chromosomes, current.getPopulationLimit(),
+				((ElitisticListPopulation) current).getElitismRate());
+	}
+
+	/* Chromosomes of the generation which were not carried over from the previous one. */
+	private static int fresh(Population previous, Population current) {
+		Set<Chromosome> old = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Chromosome chromosome : previous) {
+			old.add(chromosome);
+		}
+
+		Set<Chromosome> fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Chromosome chromosome : current) {
+			if (old.contains(chromosome) == false) {
+				fresh.add(chromosome);
+			}
+		}
+
+		return fresh.size();
+	}
+
+	/* Bytes allocated so far by the calling thread. */
+	private static long allocated() {
+		if (THREADS instanceof com.sun.management.ThreadMXBean == false) {
+			return 0;
+		}
+
+		return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+	}
+
+	/*
+	 * Run work for a generation and count what a pool worker allocates for it. Work which the caller runs itself, as
+	 * it may while it waits for the pool, is already in its own count.
+	 */
+	private void measured(Thread caller, Runnable work) {
+		if (listeners.isEmpty() == true || Thread.currentThread() == caller) {
+			work.run();
+			return;
+		}
+
+		long bytes = allocated();
+		work.run();
+		pooled.add(allocated() - bytes);
+	}
+
+	/* Mean pairwise Hamming distance, from the counts of every cell value at every position. */
+	private static double diversity(Population population) {
+		List<byte[]> genomes = new ArrayList<>();
+		for (Chromosome chromosome : population) {
+			genomes.add(((CellChromosome) chromosome).genome());
+		}
+
+		int size = genomes.size();
+		if (size < 2) {
+			return 0;
+		}
+
+		int length = genomes.get(0).length;
+		int[] counts = new int[App.CELLS.length];
+		double distance = 0;
+		for (int k = 0; k < length; k++) {
+			for (int c = 0; c < counts.length; c++) {
+				counts[c] = 0;
+			}
+			for (byte[] genome : genomes) {
+				counts[genome[k]]++;
+			}
+
+			long same = 0;
+			for (int count : counts) {
+				same += (long) count * count;
+			}
+			distance += (double) size * size - same;
+		}
+
+		return distance / ((double) size * (size - 1));
+	}
+
+	private void report(Population population, int evaluations, long evaluation, long total, long allocated) {
+		Metrics metrics = new Metrics();
+		metrics.island = island;
+		metrics.generation = generations;
+		metrics.evaluations = evaluations;
+		metrics.selection = ((Timer) getSelectionPolicy()).take();
+		metrics.crossover = ((Timer) getCrossoverPolicy()).take();
+		metrics.mutation = ((Timer) getMutationPolicy()).take();
+		metrics.evaluation = evaluation;
+		metrics.total = total;
+		metrics.allocated = allocated;
+
+		double sum = 0;
+		metrics.best = Double.NEGATIVE_INFINITY;
+		for (Chromosome chromosome : population) {
+			sum += chromosome.getFitness();
+			metrics.best = Math.max(metrics.best, chromosome.getFitness());
+		}
+		metrics.mean = sum / population.getPopulationSize();
+		metrics.diversity = diversity(population);
+
+		for (Metrics.Listener listener : listeners) {
+			listener.generation(metrics);
+		}
+	}
+
+	@Override
+	public Population evolve(Population initial, StoppingCondition condition) {
+		Population current = initial;
+		generationsEvolved = 0;
+
+		evaluate(current);
+		while (condition.isSatisfied(current) == false) {
+			Events.Generation event = new Events.Generation();
+			event.begin();
+			long start = System.nanoTime();
+			long bytes = listeners.isEmpty() == true ? 0 : allocated() + pooled.sum();
+
+			Population previous = current;
+			current = nextGeneration(current);
+			if (search != null) {
+				current = improve(previous, current);
+			}
+
+			long middle = System.nanoTime();
+			evaluate(current);
+			long end = System.nanoTime();
+
+			generationsEvolved++;
+			generations++;
+			if (checkpoint != null && checkpoint.due(generations - 1, generations) == true) {
+				checkpoint.save(generations, new long[] { Checkpoint.reseed(RandomStreams.current()) },
+						condition instanceof Stopping ? ((Stopping) condition).progress() : new long[0], current);
+			}
+			if (listeners.isEmpty() == false) {
+				report(current, fresh(previous, current), end - middle, end - start,
+						allocated() + pooled.sum() - bytes);
+			}
+
+			event.end();
+			if (event.shouldCommit() == true) {
+				event.island = island;
+				event.generation = generations;
+				event.population = current.getPopulationSize();
+				event.best = current.getFittestChromosome().getFitness();
+				event.cells = ((CellChromosome) current.getFittestChromosome()).genome().length;
+				event.commit();
+			}
+		}
+
+		return current;
+	}
+
+	@Override
+	public int getGenerationsEvolved() {
+		return generationsEvolved;
+	}
+}
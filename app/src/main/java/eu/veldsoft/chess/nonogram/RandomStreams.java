@@ -0,0 +1,110 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.random.AbstractRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Independent random streams split from one run-level seed. Every thread draws from its own current stream, so
+ * nothing is shared between threads. Islands and batch jobs get their streams split in a fixed order and install them
+ * on whichever thread runs them, so the same seed gives the same run. Work started inside a job, like its islands or
+ * tiles, splits from the current stream and not from the root, which the other jobs of a batch also split.
+ */
+class RandomStreams {
+	static class Stream extends AbstractRandomGenerator {
+		private SplittableRandom random;
+
+		Stream(SplittableRandom random) {
+			this.random = random;
+		}
+
+		Stream split() {
+			return new Stream(random.split());
+		}
+
+		@Override
+		public void setSeed(long seed) {
+			random = new SplittableRandom(seed);
+			clear();
+		}
+
+		@Override
+		public double nextDouble() {
+			return random.nextDouble();
+		}
+
+		@Override
+		public int nextInt() {
+			return random.nextInt();
+		}
+
+		@Override
+		public int nextInt(int n) {
+			return random.nextInt(n);
+		}
+
+		@Override
+		public long nextLong() {
+			return random.nextLong();
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return random.nextBoolean();
+		}
+	}
+
+	private static Stream root = new Stream(new SplittableRandom());
+
+	private static final ThreadLocal<Stream> CURRENT = new ThreadLocal<>();
+
+	/* Generator for the commons-math internals, which draws from the stream of the calling thread. */
+	static final RandomGenerator THREAD = new AbstractRandomGenerator() {
+		@Override
+		public void setSeed(long seed) {
+			current().setSeed(seed);
+		}
+
+		@Override
+		public double nextDouble() {
+			return current().nextDouble();
+		}
+
+		@Override
+		public int nextInt(int n) {
+			return current().nextInt(n);
+		}
+
+		@Override
+		public long nextLong() {
+			return current().nextLong();
+		}
+	};
+
+	static synchronized void seed(long seed) {
+		root = new Stream(new SplittableRandom(seed));
+	}
+
+	static synchronized Stream split() {
+		return root.split();
+	}
+
+	/* Threads which were not given a stream get one on first use. */
+	static Stream current() {
+		Stream stream = CURRENT.get();
+		if (stream == null) {
+			stream = split();
+			CURRENT.set(stream);
+		}
+
+		return stream;
+	}
+
+	/* Install the stream on the calling thread and return the previous one, to be restored later. */
+	static Stream use(Stream stream) {
+		Stream previous = CURRENT.get();
+		CURRENT.set(stream);
+		return previous;
+	}
+}
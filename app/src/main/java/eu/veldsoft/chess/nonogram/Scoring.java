@@ -0,0 +1,55 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+
+/*
+ * Full evaluation of a genome in two passes over flat arrays: the attack counters, and one fused scoring kernel over
+ * the counters, the cells and the pixels. The counters are a scratch buffer of the thread, so a full evaluation does
+ * not allocate. The kernel is vectorized when the jdk.incubator.vector module is in the boot layer, which the build
+ * adds, and the hardware has wide enough vectors. Otherwise the scalar loop with the same result runs. The flag also
+ * selects the vector window of the dice kernel.
+ */
+class Scoring {
+	static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() == true
+			&& Boolean.getBoolean("nonogram.scalar") == false && VectorScoring.SUPPORTED == true;
+
+	private static final ThreadLocal<int[]> COUNTERS = ThreadLocal.withInitial(() -> new int[0]);
+
+	private static int[] counters(int length) {
+		int[] counters = COUNTERS.get();
+		if (counters.length < length) {
+			counters = new int[length];
+			COUNTERS.set(counters);
+		} else {
+			Arrays.fill(counters, 0, length, 0);
+		}
+
+		return counters;
+	}
+
+	/* The rules of App.score, for the cells from the first up to the last one, excluded. */
+	static int score(byte[] cells, byte[] pixels, int[] counters, int first, int last) {
+		int score = 0;
+		for (int k = first; k < last; k++) {
+			int counter = counters[k];
+			if (cells[k] == App.OCCUPIED) {
+				score += counter == 2 ? App.BEST : counter > 2 ? App.GOOD : App.UNDERBEATEN;
+			}
+			if (pixels[k] == 0 && counter > 1) {
+				score += App.BAD;
+			}
+		}
+
+		return score;
+	}
+
+	static int fitness(byte[] genome, AttackTable table) {
+		int[] counters = App.beaten(genome, table, counters(genome.length));
+
+		if (VECTOR == true) {
+			return VectorScoring.score(genome, table.pixels, counters, genome.length);
+		}
+
+		return score(genome, table.pixels, counters, 0, genome.length);
+	}
+}
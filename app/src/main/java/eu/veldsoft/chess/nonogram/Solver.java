@@ -0,0 +1,16 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Search for a board of the image of the table. The result may still have unused or harmful pieces, because
+ * App.solve repairs it.
+ */
+interface Solver {
+	byte[] solve(AttackTable table, Options options, ForkJoinPool pool);
+
+	/* True when the last result is a perfect covering, which is not repaired. */
+	default boolean perfect() {
+		return false;
+	}
+}
@@ -0,0 +1,323 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.stream.LongStream;
+
+import org.apache.commons.math3.genetics.Population;
+import org.apache.commons.math3.genetics.StoppingCondition;
+
+/*
+ * Stopping conditions which remember whether they fired, so the run can report why it ended. The genetic algorithm
+ * checks them once per generation. The island model checks them between epochs and tells how many generations have
+ * passed since the last check.
+ *
+ * The counters of the conditions go into checkpoints, so the budgets of a resumed run continue instead of restarting.
+ * A checkpoint of the genetic algorithm is taken before the check of its generation, so after a resume the first
+ * check counts that generation.
+ */
+abstract class Stopping implements StoppingCondition {
+	private boolean fired = false;
+
+	private boolean started = false;
+
+	abstract boolean satisfied(Population population, int generations);
+
+	/* Counters of the condition, in the order of the composition. */
+	void store(LongStream.Builder values) {
+	}
+
+	void restore(PrimitiveIterator.OfLong values) {
+	}
+
+	/* Generations left before the condition surely fires, for the island model to cut its last epoch. */
+	int remaining() {
+		return Integer.MAX_VALUE;
+	}
+
+	long[] progress() {
+		LongStream.Builder values = LongStream.builder();
+		store(values);
+		return values.build().toArray();
+	}
+
+	/* Continue from the counters of a checkpoint, taken from the same conditions. */
+	void resume(long[] progress) {
+		if (progress.length != progress().length) {
+			throw new IllegalArgumentException("Checkpoint has other stopping conditions.");
+		}
+
+		started = true;
+		restore(Arrays.stream(progress).iterator());
+	}
+
+	/* Check after the given number of generations. */
+	boolean check(Population population, int generations) {
+		if (satisfied(population, generations) == true) {
+			fired = true;
+		}
+
+		return fired;
+	}
+
+	/* The genetic algorithm checks once before the first generation and then after every generation. */
+	@Override
+	public boolean isSatisfied(Population population) {
+		int elapsed = started == true ? 1 : 0;
+		started = true;
+		return check(population, elapsed);
+	}
+
+	/* The condition which ended the run, or null. */
+	Stopping fired() {
+		return fired == true ? this : null;
+	}
+
+	static Stopping generations(int limit) {
+		return new Stopping() {
+			private int generations = 0;
+
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				generations += elapsed;
+				return generations >= limit;
+			}
+
+			@Override
+			int remaining() {
+				return Math.max(0, limit - generations);
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				values.add(generations);
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				generations = (int) values.nextLong();
+			}
+
+			@Override
+			public String toString() {
+				return "generations " + limit;
+			}
+		};
+	}
+
+	static Stopping target(double fitness) {
+		return new Stopping() {
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				return population.getFittestChromosome().getFitness() >= fitness;
+			}
+
+			@Override
+			public String toString() {
+				return "target fitness " + (long) fitness;
+			}
+		};
+	}
+
+	static Stopping stagnation(int limit) {
+		return new Stopping() {
+			private double best = Double.NEGATIVE_INFINITY;
+
+			private int stagnant = 0;
+
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				double fitness = population.getFittestChromosome().getFitness();
+				if (fitness > best) {
+					best = fitness;
+					stagnant = 0;
+				} else {
+					stagnant += elapsed;
+				}
+
+				return stagnant >= limit;
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				values.add(Double.doubleToLongBits(best)).add(stagnant);
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				best = Double.longBitsToDouble(values.nextLong());
+				stagnant = (int) values.nextLong();
+			}
+
+			@Override
+			public String toString() {
+				return "stagnation for " + limit + " generations";
+			}
+		};
+	}
+
+	/* Wall clock budget, counted from the first check. A resumed run continues with the time left. */
+	static Stopping time(double seconds) {
+		return new Stopping() {
+			private long deadline = 0;
+
+			private long spent = 0;
+
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				if (deadline == 0) {
+					deadline = System.nanoTime() + (long) (seconds * 1e9) - spent;
+				}
+
+				return System.nanoTime() >= deadline;
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				values.add(deadline == 0 ? spent : System.nanoTime() - deadline + (long) (seconds * 1e9));
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				spent = values.nextLong();
+			}
+
+			@Override
+			public String toString() {
+				return "time " + seconds + " s";
+			}
+		};
+	}
+
+	/* Budget of fitness evaluations against the table, counted from the first check. Cache hits cost nothing. */
+	static Stopping evaluations(AttackTable table, long limit) {
+		return new Stopping() {
+			/* The start of a resumed count can be below zero, so it is not a marker of the first check. */
+			private boolean counting = false;
+
+			private long start = 0;
+
+			private long used = 0;
+
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				if (counting == false) {
+					start = table.evaluations.sum() - used;
+					counting = true;
+				}
+
+				return table.evaluations.sum() - start >= limit;
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				values.add(counting == false ? used : table.evaluations.sum() - start);
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				used = values.nextLong();
+			}
+
+			@Override
+			public String toString() {
+				return "evaluations " + limit;
+			}
+		};
+	}
+
+	/* Every condition is checked each time, so the stateful ones never miss a generation. */
+	static Stopping any(Stopping... conditions) {
+		return new Stopping() {
+			private Stopping first = null;
+
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				for (Stopping condition : conditions) {
+					if (condition.check(population, elapsed) == true && first == null) {
+						first = condition;
+					}
+				}
+
+				return first != null;
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				for (Stopping condition : conditions) {
+					condition.store(values);
+				}
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				for (Stopping condition : conditions) {
+					condition.restore(values);
+				}
+			}
+
+			@Override
+			int remaining() {
+				int remaining = Integer.MAX_VALUE;
+				for (Stopping condition : conditions) {
+					remaining = Math.min(remaining, condition.remaining());
+				}
+
+				return remaining;
+			}
+
+			@Override
+			Stopping fired() {
+				return first == null ? null : first.fired();
+			}
+
+			@Override
+			public String toString() {
+				return "any of " + Arrays.toString(conditions);
+			}
+		};
+	}
+
+	static Stopping all(Stopping... conditions) {
+		return new Stopping() {
+			@Override
+			boolean satisfied(Population population, int elapsed) {
+				boolean satisfied = true;
+				for (Stopping condition : conditions) {
+					satisfied &= condition.check(population, elapsed);
+				}
+
+				return satisfied;
+			}
+
+			@Override
+			int remaining() {
+				int remaining = 0;
+				for (Stopping condition : conditions) {
+					remaining = Math.max(remaining, condition.remaining());
+				}
+
+				return remaining;
+			}
+
+			@Override
+			void store(LongStream.Builder values) {
+				for (Stopping condition : conditions) {
+					condition.store(values);
+				}
+			}
+
+			@Override
+			void restore(PrimitiveIterator.OfLong values) {
+				for (Stopping condition : conditions) {
+					condition.restore(values);
+				}
+			}
+
+			@Override
+			public String toString() {
+				return "all of " + Arrays.toString(conditions);
+			}
+		};
+	}
+}
@@ -0,0 +1,65 @@
+package eu.veldsoft.chess.nonogram;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+/*
+ * Tabu search over single cell moves. Every step samples --neighbours moves and makes the best of them, even when it
+ * lowers the score. A changed cell is tabu for --tenure steps, unless the move would give a new best score, which is
+ * the aspiration criterion.
+ */
+class TabuSolver extends TrajectorySolver {
+	@Override
+	void search(Options options, RandomGenerator random) {
+		int neighbours = options.get("neighbours", 32);
+		int tenure = options.get("tenure", 20);
+
+		long[] tabu = new long[evaluator.size()];
+		for (long step = 1; running() == true; step++) {
+			int cell = -1;
+			byte best = App.EMPTY;
+			int score = Integer.MIN_VALUE;
+
+			int current = evaluator.score();
+			for (int n = 0; n < neighbours && running() == true; n++) {
+				moves++;
+
+				int k = zeros[random.nextInt(zeros.length)];
+				byte previous = evaluator.get(k);
+				byte value = VALUES[random.nextInt(VALUES.length - 1)];
+				if (value == previous) {
+					value = VALUES[VALUES.length - 1];
+				}
+				if (useful(k, value) == false) {
+					continue;
+				}
+
+				evaluator.set(k, value);
+				int candidate = evaluator.score();
+				boolean harmful = harmful();
+				evaluator.set(k, previous);
+
+				if (harmful == true) {
+					continue;
+				}
+				if (tabu[k] >= step && candidate <= best()) {
+					continue;
+				}
+				if (candidate > score) {
+					cell = k;
+					best = value;
+					score = candidate;
+				}
+			}
+
+			if (cell == -1) {
+				continue;
+			}
+
+			evaluator.set(cell, best);
+			tabu[cell] = step + tenure;
+			if (score > current) {
+				record();
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Solver for images too large for a single attack table. The image is cut into tiles, every tile is extended by an
+ * overlap on all sides and solved on its own with the configured engine, and only the core of every tile is kept.
+ * Pieces near the seams can then over-attack or block each other, so the stitched board is repaired: harmful pieces
+ * are removed by the worklist of App.removeHarmful, and under-covered pixels get nearby pieces which over-attack no
+ * zero pixel. Pieces kept from a tile already hit a one pixel inside the tile, so the stitched board has no unused
+ * pieces.
+ *
+ * The whole board is evaluated by an Evaluator over an attack table which traces its rays on request, as the
+ * precomputed rays of a poster-size board do not fit in memory.
+ */
+class TiledSolver {
+	/* Distance around an under-covered pixel in which new pieces are tried. */
+	private static final int RADIUS = 2;
+
+	private final int[][] image;
+
+	private final int height;
+
+	private final int width;
+
+	private final int tile;
+
+	private final int overlap;
+
+	private final AttackTable table;
+
+	private Evaluator evaluator;
+
+	TiledSolver(int[][] image, int tile, int overlap) {
+		this.image = image;
+		this.tile = tile;
+		this.overlap = overlap;
+
+		height = image.length;
+		int widest = 0;
+		for (int i = 0; i < image.length; i++) {
+			widest = Math.max(widest, image[i].length);
+		}
+		width = widest;
+
+		App.steps(App.size(image));
+		table = new AttackTable(image, false);
+	}
+
+	/* Tile of the image from the given corner, clipped to the image. */
+	private int[][] crop(int top, int left, int rows, int columns) {
+		int[][] part = new int[Math.min(rows, height - top)][];
+		for (int i = 0; i < part.length; i++) {
+			int[] row = image[top + i];
+			int from = Math.min(left, row.length);
+			int to = Math.min(left + columns, row.length);
+			part[i] = Arrays.copyOfRange(row, from, to);
+		}
+
+		return part;
+	}
+
+	private void stitch(Options options, ForkJoinPool pool) {
+		List<int[]> corners = new ArrayList<>();
+		List<int[][]> parts = new ArrayList<>();
+		List<Future<byte[]>> futures = new ArrayList<>();
+		for (int top = 0; top < height; top += tile) {
+			for (int left = 0; left < width; left += tile) {
+				int outerTop = Math.max(0, top - overlap);
+				int outerLeft = Math.max(0, left - overlap);
+				int[][] part = crop(outerTop, outerLeft, top + tile + overlap - outerTop,
+						left + tile + overlap - outerLeft);
+
+				/* Streams are split in tile order from the stream of the caller, which is the job stream in a batch. */
+				RandomStreams.Stream stream = RandomStreams.current().split();
+				corners.add(new int[] { top, left, outerTop, outerLeft });
+				parts.add(part);
+				futures.add(pool.submit(() -> {
+					RandomStreams.Stream previous = RandomStreams.use(stream);
+					try {
+						return App.solve(new AttackTable(part), options, null);
+					} finally {
+						RandomStreams.use(previous);
+					}
+				}));
+			}
+		}
+
+		byte[] genome = App.emptyOnly(image);
+		for (int t = 0; t < futures.size(); t++) {
+			byte[] part;
+			try {
+				part = futures.get(t).get();
+			} catch (InterruptedException | ExecutionException exception) {
+				throw new IllegalStateException(exception);
+			}
+
+			int top = corners.get(t)[0];
+			int left = corners.get(t)[1];
+			int outerTop = corners.get(t)[2];
+			int outerLeft = corners.get(t)[3];
+			int[][] outer = parts.get(t);
+
+			/* Only the core of the tile is kept, the overlap belongs to the neighbours. */
+			for (int i = 0, k = 0; i < outer.length; i++) {
+				for (int j = 0; j < outer[i].length; j++, k++) {
+					int x = outerTop + i;
+					int y = outerLeft + j;
+					if (x >= top && x < top + tile && y >= left && y < left + tile) {
+						genome[table.offsets[x] + y] = part[k];
+					}
+				}
+			}
+		}
+
+		evaluator = new Evaluator(genome, table);
+	}
+
+	/* Remove harmful pieces with the worklist of App.removeHarmful, starting from every piece of the board. */
+	private void repairHarmful() {
+		BitSet pending = new BitSet(evaluator.size());
+		for (int k = 0; k < evaluator.size(); k++) {
+			if (App.isPiece(evaluator.get(k)) == true) {
+				pending.set(k);
+			}
+		}
+
+		App.removeHarmful(evaluator, pending, table, null);
+	}
+
+	/*
+	 * Try pieces around every under-covered pixel and keep the first one which covers more and over-attacks no zero
+	 * pixel. A new piece only blocks the rays of the others, so it can not make any other piece harmful.
+	 */
+	private void repairCoverage() {
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < image[i].length; j++) {
+				int index = table.offsets[i] + j;
+				if (image[i][j] == 0 || evaluator.counter(index) >= 2) {
+					continue;
+				}
+
+				for (int x = Math.max(0, i - RADIUS); x <= Math.min(height - 1, i + RADIUS)
+						&& evaluator.counter(index) < 2; x++) {
+					for (int y = Math.max(0, j - RADIUS); y <= Math.min(image[x].length - 1, j + RADIUS)
+							&& evaluator.counter(index) < 2; y++) {
+						int candidate = table.offsets[x] + y;
+						if (evaluator.get(candidate) != App.EMPTY) {
+							continue;
+						}
+
+						for (Cell piece : App.PIECES_ARRAY) {
+							int unbeaten = evaluator.unbeaten();
+
+							evaluator.set(candidate, (byte) piece.ordinal());
+							if (evaluator.unbeaten() < unbeaten && App.harmful(candidate, evaluator, table) == false) {
+								break;
+							}
+							evaluator.set(candidate, App.EMPTY);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	byte[] solve(Options options, ForkJoinPool pool) {
+		stitch(options, pool);
+		repairHarmful();
+		repairCoverage();
+
+		return evaluator.genome().clone();
+	}
+
+	int fitness() {
+		return evaluator.score();
+	}
+
+	void print(PrintStream out) {
+		byte[] genome = evaluator.genome();
+		for (int i = 0, k = 0; i < height; i++) {
+			for (int j = 0; j < image[i].length; j++, k++) {
+				out.print(App.CELLS[genome[k]].symbol());
+			}
+			out.println();
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+/*
+ * Search which walks a single board with moves of one zero pixel to empty or to a piece. The moves are scored by the
+ * incremental evaluator, with the scoring of App.fitness, and after the setup nothing is allocated except for the
+ * copies of improved best boards. The walk ends at a perfect score, after the budget of tried moves, or at the time
+ * limit, which is checked once in a batch of moves.
+ *
+ * Moves which put an unused piece, or which attack a zero pixel more than once, are never made. The board starts
+ * empty, so it stays free of unused and harmful pieces and the repair of App.solve keeps its score. Otherwise the walk
+ * settles on boards which score well only before the repair, as removing an unused piece unblocks the rays of others.
+ */
+abstract class TrajectorySolver implements Solver {
+	static final byte[] VALUES = { App.EMPTY, (byte) Cell.KING.ordinal(), (byte) Cell.QUEEN.ordinal(),
+			(byte) Cell.ROOK.ordinal(), (byte) Cell.BISHOP.ordinal(), (byte) Cell.KNIGHT.ordinal(), };
+
+	static final int BATCH = 1 << 12;
+
+	Evaluator evaluator;
+
+	/* Cells of the zero pixels, the only ones the moves change. */
+	int[] zeros;
+
+	/* Whether the value at the cell hits a one pixel, by cell and value. Empty is always allowed. */
+	private boolean[] useful;
+
+	long moves = 0;
+
+	private long limit;
+
+	private long start;
+
+	private long nanoseconds;
+
+	private int perfect;
+
+	private byte[] best;
+
+	private int score;
+
+	/* Walk the board until running() says to stop. */
+	abstract void search(Options options, RandomGenerator random);
+
+	/* Part of the budget used, from zero to one, by moves or by time, whichever is further. */
+	double progress() {
+		double progress = (double) moves / limit;
+		if (nanoseconds > 0) {
+			progress = Math.max(progress, (double) (System.nanoTime() - start) / nanoseconds);
+		}
+
+		return Math.min(1, progress);
+	}
+
+	boolean running() {
+		if (evaluator.score() >= perfect || moves >= limit) {
+			return false;
+		}
+
+		return nanoseconds == 0 || moves % BATCH != 0 || System.nanoTime() - start < nanoseconds;
+	}
+
+	/* Whether the value can be put on the cell without being removed as unused. */
+	boolean useful(int index, byte value) {
+		return useful[index * App.CELLS.length + value];
+	}
+
+	/* Whether the last move attacked a zero pixel more than once, so it has to be taken back. */
+	boolean harmful() {
+		return evaluator.overbeaten() > 0;
+	}
+
+	/* Remember the board when it is the best so far. */
+	void record() {
+		if (evaluator.score() > score) {
+			score = evaluator.score();
+			System.arraycopy(evaluator.genome(), 0, best, 0, best.length);
+		}
+	}
+
+	int best() {
+		return score;
+	}
+
+	@Override
+	public byte[] solve(AttackTable table, Options options, ForkJoinPool pool) {
+		evaluator = new Evaluator(App.emptyOnly(table.image), table);
+
+		int count = 0;
+		for (int k = 0; k < table.size(); k++) {
+			count += 1 - table.pixels[k];
+		}
+		zeros = new int[count];
+		for (int k = 0, z = 0; k < table.size(); k++) {
+			if (table.pixels[k] == 0) {
+				zeros[z++] = k;
+			}
+		}
+
+		useful = new boolean[table.size() * App.CELLS.length];
+		for (int k : zeros) {
+			useful[k * App.CELLS.length + App.EMPTY] = true;
+			for (Cell piece : App.PIECES_ARRAY) {
+				useful[k * App.CELLS.length + piece.ordinal()] = App.hitting(k, piece, table);
+			}
+		}
+
+		limit = options.get("moves", 10_000_000L);
+		nanoseconds = (long) (options.get("time", 0D) * 1e9);
+		perfect = App.perfect(table);
+		best = evaluator.genome().clone();
+		score = evaluator.score();
+
+		start = System.nanoTime();
+		if (zeros.length > 0) {
+			search(options, RandomStreams.current());
+		}
+		long elapsed = System.nanoTime() - start;
+
+		System.err.println("Moves: " + moves + " (" + (long) (moves * 1e9 / Math.max(1, elapsed)) + " per second)");
+		System.err.println("Best score: " + score);
+
+		return best;
+	}
+}
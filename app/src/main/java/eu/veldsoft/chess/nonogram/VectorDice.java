@@ -0,0 +1,36 @@
+package eu.veldsoft.chess.nonogram;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Vector form of the window of the dice kernel. Three shifted loads of the column sums are added, the pixel is taken
+ * out, the digit is masked to zero on one pixels and on sums above six, and the lanes are narrowed to the bytes of
+ * the row. Only Dice refers to this class, and only when Scoring.VECTOR says the vector kernels are used.
+ */
+class VectorDice {
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class,
+			VectorShape.forBitSize(INTS.vectorBitSize() / 4));
+
+	/* Digits of the whole vectors at the start of the row, and the index where the scalar loop goes on. */
+	static int digits(int[] sums, int[] middle, byte[] digits) {
+		int j = 0;
+		for (int bound = INTS.loopBound(digits.length); j < bound; j += INTS.length()) {
+			IntVector pixel = IntVector.fromArray(INTS, middle, j);
+			IntVector sum = IntVector.fromArray(INTS, sums, j).add(IntVector.fromArray(INTS, sums, j + 1))
+					.add(IntVector.fromArray(INTS, sums, j + 2)).sub(pixel);
+
+			VectorMask<Integer> shown = pixel.compare(VectorOperators.EQ, 0).and(sum.compare(VectorOperators.LE, 6));
+			IntVector digit = IntVector.zero(INTS).blend(sum, shown).add('0');
+			((ByteVector) digit.castShape(BYTES, 0)).intoArray(digits, j);
+		}
+
+		return j;
+	}
+}
@@ -0,0 +1,44 @@
+package eu.veldsoft.chess.nonogram;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * Vector form of the scoring kernel. The cells and the pixels are loaded as bytes and widened to the lanes of the
+ * counters, every rule is a lane mask, and the masked sums are reduced once at the end. The kernel is only used when
+ * the preferred shape of the hardware has at least 256 bits, because a narrower one has no byte species of as many
+ * lanes, and a forced wider shape is emulated far slower than the scalar loop. Only Scoring refers to this class,
+ * and only when the module is present.
+ */
+class VectorScoring {
+	static final boolean SUPPORTED = IntVector.SPECIES_PREFERRED.vectorBitSize() >= 256;
+
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	private static final VectorSpecies<Byte> BYTES = SUPPORTED == true
+			? VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.vectorBitSize() / 4))
+			: null;
+
+	static int score(byte[] cells, byte[] pixels, int[] counters, int length) {
+		IntVector sum = IntVector.zero(INTS);
+
+		int k = 0;
+		for (int bound = INTS.loopBound(length); k < bound; k += INTS.length()) {
+			IntVector counter = IntVector.fromArray(INTS, counters, k);
+			IntVector cell = (IntVector) ByteVector.fromArray(BYTES, cells, k).castShape(INTS, 0);
+			IntVector pixel = (IntVector) ByteVector.fromArray(BYTES, pixels, k).castShape(INTS, 0);
+
+			VectorMask<Integer> occupied = cell.compare(VectorOperators.EQ, App.OCCUPIED);
+			sum = sum.add(App.BEST, occupied.and(counter.compare(VectorOperators.EQ, 2)));
+			sum = sum.add(App.GOOD, occupied.and(counter.compare(VectorOperators.GT, 2)));
+			sum = sum.add(App.UNDERBEATEN, occupied.and(counter.compare(VectorOperators.LT, 2)));
+			sum = sum.add(App.BAD, pixel.compare(VectorOperators.EQ, 0).and(counter.compare(VectorOperators.GT, 1)));
+		}
+
+		return sum.reduceLanes(VectorOperators.ADD) + Scoring.score(cells, pixels, counters, k, length);
+	}
+}
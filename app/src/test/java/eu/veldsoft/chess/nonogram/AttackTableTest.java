@@ -0,0 +1,52 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.veldsoft.chess.nonogram.App.Cell;
+
+public class AttackTableTest {
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* Rays traced on request, once traced and once from the cache, are the precomputed ones. */
+	@Test
+	public void tracesThePrecomputedRays() {
+		Random random = new Random(0L);
+		for (int t = 0; t < 100; t++) {
+			int[][] image = RandomImages.ragged(random, 20, 20);
+			AttackTable precomputed = RandomImages.table(image);
+			AttackTable traced = new AttackTable(image, false);
+
+			for (int pass = 0; pass < 2; pass++) {
+				for (int k = 0; k < precomputed.size(); k++) {
+					for (Cell cell : App.CELLS) {
+						assertArrayEquals("Image " + t + ", cell " + k + ", " + cell + ".", precomputed.rays(k, cell),
+								traced.rays(k, cell));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void scoresLikeThePrecomputedTable() {
+		Random random = new Random(1L);
+		for (int t = 0; t < 100; t++) {
+			int[][] image = RandomImages.ragged(random, 30, 30);
+			AttackTable precomputed = RandomImages.table(image);
+			AttackTable traced = new AttackTable(image, false);
+
+			byte[] genome = App.randomOnly(image, random.nextDouble() * 0.5D);
+			assertEquals("Image " + t + ".", App.fitness(genome, precomputed), new Evaluator(genome, traced).score());
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BitboardTest {
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	private static void check(Random random, int[][] image, int t) {
+		AttackTable table = RandomImages.table(image);
+		assertNotNull(table.bitboard);
+
+		for (int d = 0; d < 4; d++) {
+			byte[] genome = App.randomOnly(image, random.nextDouble() * 0.5D);
+
+			int expected = App.fitness(genome, table);
+			assertEquals("Bitboard on image " + t + ".", expected, table.bitboard.fitness(genome));
+			assertEquals("Evaluator on image " + t + ".", expected, new Evaluator(genome, table).score());
+		}
+	}
+
+	/* Ragged images up to the full width of a word, with all zero and all one rows. */
+	@Test
+	public void matchesTheReference() {
+		Random random = new Random(0L);
+		for (int t = 0; t < 300; t++) {
+			check(random, RandomImages.ragged(random, 40, t % 2 == 0 ? 16 : Bitboard.WIDTH), t);
+		}
+	}
+
+	@Test
+	public void matchesTheReferenceOnFullWords() {
+		Random random = new Random(1L);
+		int[][] image = new int[Bitboard.WIDTH][Bitboard.WIDTH];
+		for (int i = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++) {
+				image[i][j] = i % 7 == 0 ? 1 : i % 5 == 0 ? 0 : random.nextInt(2);
+			}
+		}
+
+		check(random, image, 0);
+	}
+
+	@Test
+	public void isNotBuiltForWideImages() {
+		assertNull(RandomImages.table(new int[][] { new int[Bitboard.WIDTH + 1] }).bitboard);
+	}
+}
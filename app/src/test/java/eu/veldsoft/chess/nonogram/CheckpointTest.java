@@ -0,0 +1,131 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.genetics.Chromosome;
+import org.apache.commons.math3.genetics.ElitisticListPopulation;
+import org.apache.commons.math3.genetics.Population;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CheckpointTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* An odd number of cells, so the last byte of a packed genome holds a single cell. */
+	private static int[][] image(Random random) {
+		int[][] image = new int[5][7];
+		for (int i = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++) {
+				image[i][j] = random.nextInt(2);
+			}
+		}
+
+		return image;
+	}
+
+	private static Population population(AttackTable table, int size, int limit, double rate) {
+		List<Chromosome> chromosomes = new ArrayList<>();
+		for (int c = 0; c < size; c++) {
+			chromosomes.add(new CellChromosome(App.randomOnly(table.image, 0.3D), table));
+		}
+
+		return new ElitisticListPopulation(chromosomes, limit, rate);
+	}
+
+	@Test
+	public void restoresTheSavedState() throws IOException {
+		int[][] image = image(new Random(0L));
+		AttackTable table = RandomImages.table(image);
+		Population[] populations = { population(table, 6, 12, 0.05D), population(table, 3, 8, 0.5D), };
+
+		Path file = folder.getRoot().toPath().resolve("run.checkpoint");
+		Checkpoint checkpoint = new Checkpoint(file, 10);
+		checkpoint.save(42, new long[] { 7L, -3L }, new long[] { 42L, 1234L }, populations);
+		checkpoint.close();
+		assertFalse(Files.exists(file.resolveSibling("run.checkpoint.tmp")));
+
+		/* A fresh table has an empty cache, as after a restart of the process. */
+		AttackTable fresh = RandomImages.table(image);
+		Checkpoint.State state = Checkpoint.load(file, fresh);
+
+		assertEquals(42, state.generation);
+		assertArrayEquals(new long[] { 7L, -3L }, state.seeds);
+		assertArrayEquals(new long[] { 42L, 1234L }, state.progress);
+		assertEquals(populations.length, state.populations.length);
+
+		for (int i = 0; i < populations.length; i++) {
+			Population population = state.populations[i];
+			assertEquals(populations[i].getPopulationLimit(), population.getPopulationLimit());
+			assertEquals(((ElitisticListPopulation) populations[i]).getElitismRate(),
+					((ElitisticListPopulation) population).getElitismRate(), 0D);
+			assertEquals(populations[i].getPopulationSize(), population.getPopulationSize());
+
+			Iterator<Chromosome> saved = populations[i].iterator();
+			for (Chromosome chromosome : population) {
+				Chromosome original = saved.next();
+				assertArrayEquals(((CellChromosome) original).genome(), ((CellChromosome) chromosome).genome());
+				assertEquals(original.getFitness(), chromosome.getFitness(), 0D);
+			}
+		}
+
+		/* The stored fitness values are served from the cache. */
+		assertEquals(0, fresh.evaluations.sum());
+	}
+
+	@Test(expected = IOException.class)
+	public void refusesTheCheckpointOfAnotherImage() throws IOException {
+		Random random = new Random(1L);
+		AttackTable table = RandomImages.table(image(random));
+
+		Path file = folder.getRoot().toPath().resolve("run.checkpoint");
+		Checkpoint checkpoint = new Checkpoint(file, 10);
+		checkpoint.save(1, new long[] { 1L }, new long[0], population(table, 2, 4, 0.5D));
+		checkpoint.close();
+
+		int[][] other = image(random);
+		other[0][0] = 1 - table.image[0][0];
+		Checkpoint.load(file, RandomImages.table(other));
+	}
+
+	@Test
+	public void resumesOnlyFromAnExistingFile() throws IOException {
+		AttackTable table = RandomImages.table(image(new Random(2L)));
+		Checkpoint checkpoint = new Checkpoint(folder.getRoot().toPath().resolve("missing.checkpoint"), 10);
+
+		checkpoint.resume(table);
+		assertNull(checkpoint.resumed());
+		checkpoint.close();
+	}
+
+	@Test
+	public void isDueAtEveryInterval() {
+		Checkpoint checkpoint = new Checkpoint(folder.getRoot().toPath().resolve("run.checkpoint"), 10);
+
+		assertTrue(checkpoint.due(9, 10));
+		assertFalse(checkpoint.due(10, 11));
+		assertFalse(checkpoint.due(11, 19));
+		assertTrue(checkpoint.due(5, 25));
+		checkpoint.close();
+	}
+}
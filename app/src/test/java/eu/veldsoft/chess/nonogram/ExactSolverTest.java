@@ -0,0 +1,52 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ExactSolverTest {
+	private static void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* Out of time before the first decision, the search still returns a board as good as a greedy covering. */
+	@Test
+	public void fallsBackToAGreedyCoveringOnBudget() {
+		Random random = new Random(0L);
+		for (int t = 0; t < 20; t++) {
+			int[][] image = RandomImages.ragged(random, 24, 24);
+			AttackTable table = RandomImages.table(image);
+
+			streams();
+			int greedy = App.fitness(GreedyCover.build(table, RandomStreams.current()), table);
+
+			streams();
+			ExactSolver solver = new ExactSolver(table, null);
+			/* A deadline already passed, as the clock may not move between two readings. */
+			byte[] genome = solver.solve(-1L);
+
+			assertEquals("Image " + t + ".", ExactSolver.Status.BUDGET, solver.status());
+			assertTrue("Image " + t + ".", App.fitness(genome, table) >= greedy);
+		}
+	}
+
+	/* A blank image is covered perfectly by the empty board, which is not repaired. */
+	@Test
+	public void isRegisteredAsASolver() {
+		streams();
+		AttackTable table = RandomImages.table(new int[5][7]);
+		Options options = new Options(new String[] { "in", "out", "--solver=exact", "--time=10" });
+
+		Solver solver = App.solver("exact");
+		assertFalse(solver.perfect());
+
+		byte[] genome = solver.solve(table, options, null);
+		assertTrue(solver.perfect());
+		assertEquals(App.fitness(App.emptyOnly(table.image), table), App.fitness(genome, table));
+	}
+}
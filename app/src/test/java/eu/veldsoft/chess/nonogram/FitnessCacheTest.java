@@ -0,0 +1,94 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FitnessCacheTest {
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* A cache hit is not a fitness evaluation of the budget. */
+	@Test
+	public void countsOnlyComputedEvaluations() {
+		AttackTable table = RandomImages.table(RandomImages.ragged(new Random(0L), 12, 12));
+		assertNotNull(table.cache);
+
+		byte[] genome = App.randomOnly(table.image, 0.2D);
+		double first = new CellChromosome(genome.clone(), table).fitness();
+		double second = new CellChromosome(genome.clone(), table).fitness();
+
+		assertEquals(first, second, 0D);
+		assertEquals(1, table.evaluations.sum());
+		assertEquals(1, table.cache.hits());
+		assertEquals(1, table.cache.misses());
+	}
+
+	/* Keys which are multiples of the segment count all go to the first segment. */
+	private static long key(long high) {
+		return high << 4;
+	}
+
+	/* The hand clears the reference of a read entry and evicts the next one. */
+	@Test
+	public void evictsTheFirstEntryNotRead() {
+		FitnessCache cache = new FitnessCache(4 * 16);
+		for (int k = 1; k <= 4; k++) {
+			cache.put(key(k), k);
+		}
+		assertEquals(0, cache.evictions());
+
+		assertEquals(1, cache.get(key(1)));
+		cache.put(key(5), 5);
+
+		assertEquals(1, cache.evictions());
+		assertEquals(FitnessCache.MISS, cache.get(key(2)));
+		for (int k : new int[] { 1, 3, 4, 5 }) {
+			assertEquals(k, cache.get(key(k)));
+		}
+	}
+
+	@Test
+	public void replacesTheValueOfAKnownKey() {
+		FitnessCache cache = new FitnessCache(16);
+		cache.put(key(7), 1);
+		cache.put(key(7), 2);
+
+		assertEquals(2, cache.get(key(7)));
+		assertEquals(0, cache.evictions());
+	}
+
+	/*
+	 * Without reads the hand evicts in insertion order, so the last entries of a long run must all be found. Deletion
+	 * shifts back the rest of a probe sequence, and a broken shift loses keys behind the freed place.
+	 */
+	@Test
+	public void findsEveryKeyAfterManyEvictions() {
+		Random random = new Random(0L);
+		for (int capacity : new int[] { 1, 3, 64, 1000 }) {
+			FitnessCache cache = new FitnessCache(capacity * 16);
+
+			long[] keys = new long[capacity * 50];
+			for (int k = 0; k < keys.length; k++) {
+				keys[k] = key(random.nextLong() >>> 4);
+				cache.put(keys[k], k);
+			}
+
+			assertEquals(keys.length - capacity, cache.evictions());
+			for (int k = keys.length - capacity; k < keys.length; k++) {
+				assertEquals("Capacity " + capacity + ", key " + k + ".", k, cache.get(keys[k]));
+			}
+			for (int k = 0; k < keys.length - capacity; k++) {
+				assertEquals("Capacity " + capacity + ", key " + k + ".", FitnessCache.MISS, cache.get(keys[k]));
+			}
+			assertEquals(capacity, cache.hits());
+		}
+	}
+}
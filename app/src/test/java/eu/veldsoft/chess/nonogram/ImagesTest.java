@@ -0,0 +1,133 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImagesTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path write(String name, byte[] data) throws IOException {
+		Path file = folder.getRoot().toPath().resolve(name);
+		Files.write(file, data);
+		return file;
+	}
+
+	private Path write(String name, String text) throws IOException {
+		return write(name, text.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static int[][] random(Random random, int rows, int columns) {
+		int[][] image = new int[rows][columns];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				image[i][j] = random.nextInt(2);
+			}
+		}
+
+		return image;
+	}
+
+	/* Comments and whitespace anywhere in the header, pixels with and without separators. */
+	@Test
+	public void loadsPlainPortableBitmaps() throws IOException {
+		Path file = write("plain.pbm", "P1\n# comment\n5 # width\n3\n0 1 0 1 1\n10001\n1 1\n1 0 0\n");
+
+		assertArrayEquals(new int[][] { { 0, 1, 0, 1, 1 }, { 1, 0, 0, 0, 1 }, { 1, 1, 1, 0, 0 } },
+				Images.load(file).image());
+	}
+
+	/* Rows of a raw bitmap start on a new byte, so the padding bits of a row are not pixels. */
+	@Test
+	public void loadsRawPortableBitmaps() throws IOException {
+		int[][] image = random(new Random(0L), 5, 11);
+
+		byte[] header = "P4\n11 5\n".getBytes(StandardCharsets.US_ASCII);
+		byte[] data = new byte[header.length + 5 * 2];
+		System.arraycopy(header, 0, data, 0, header.length);
+		for (int i = 0; i < image.length; i++) {
+			for (int j = 0; j < image[i].length; j++) {
+				data[header.length + i * 2 + j / 8] |= image[i][j] << (7 - j % 8);
+			}
+			/* Set padding bits must still be ignored. */
+			data[header.length + i * 2 + 1] |= 0x1F;
+		}
+
+		assertArrayEquals(image, Images.load(write("raw.pbm", data)).image());
+	}
+
+	/* Opaque pixels darker than the middle gray are one, transparent ones are background. */
+	@Test
+	public void loadsPortableNetworkGraphics() throws IOException {
+		int[] colors = { 0xFF000000, 0xFFFFFFFF, 0x00000000, 0xFF646464, 0xFFC8C8C8, 0xFF0000FF, 0xFFFFFF00, };
+		int[] expected = { 1, 0, 0, 1, 0, 1, 0, };
+
+		BufferedImage image = new BufferedImage(colors.length, 2, BufferedImage.TYPE_INT_ARGB);
+		for (int j = 0; j < colors.length; j++) {
+			image.setRGB(j, 0, colors[j]);
+			image.setRGB(j, 1, colors[colors.length - 1 - j]);
+		}
+		Path file = folder.getRoot().toPath().resolve("image.png");
+		ImageIO.write(image, "png", file.toFile());
+
+		int[] reversed = new int[expected.length];
+		for (int j = 0; j < expected.length; j++) {
+			reversed[j] = expected[expected.length - 1 - j];
+		}
+		assertArrayEquals(new int[][] { expected, reversed }, Images.load(file).image());
+	}
+
+	/* The last row may have no end of line, and CRLF ends a row as LF does. */
+	@Test
+	public void loadsText() throws IOException {
+		Path file = write("image.bin", "0110\r\n1\n\n001");
+
+		assertArrayEquals(new int[][] { { 0, 1, 1, 0 }, { 1 }, {}, { 0, 0, 1 } }, Images.load(file).image());
+	}
+
+	/* Sizes which are not whole bytes or words, so the padding of the last byte is reached. */
+	@Test
+	public void savesAndLoadsPackedImages() throws IOException {
+		Random random = new Random(1L);
+		for (int[] size : new int[][] { { 1, 1 }, { 3, 5 }, { 7, 9 }, { 8, 8 }, { 13, 64 }, { 5, 67 } }) {
+			int[][] image = random(random, size[0], size[1]);
+			Path file = folder.getRoot().toPath().resolve("image" + size[0] + "x" + size[1] + ".bits");
+
+			Images.save(Bitmap.of(image), file);
+			assertArrayEquals(image, Images.load(file).image());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void refusesToPackRaggedRows() throws IOException {
+		Images.save(Bitmap.of(new int[][] { { 1, 0 }, { 1 } }), folder.getRoot().toPath().resolve("ragged.bits"));
+	}
+
+	@Test
+	public void keepsRaggedRowsInBitmaps() {
+		int[][] image = RandomImages.ragged(new Random(2L), 30, 100);
+		Bitmap bitmap = Bitmap.of(image);
+
+		assertEquals(image.length, bitmap.rows());
+		for (int i = 0; i < image.length; i++) {
+			assertEquals(image[i].length, bitmap.width(i));
+			for (int j = 0; j < image[i].length; j++) {
+				assertEquals(image[i][j], bitmap.get(i, j));
+			}
+		}
+		assertArrayEquals(image, bitmap.image());
+	}
+}
@@ -0,0 +1,56 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OptionsTest {
+	@Test
+	public void splitsPositionalArgumentsAndOptions() {
+		Options options = new Options(new String[] { "in.bin", "--tile=32", "out.txt", "--memetic" });
+
+		assertEquals("in.bin", options.get(0));
+		assertEquals("out.txt", options.get(1));
+		assertEquals(32, options.get("tile", 0));
+		assertTrue(options.has("memetic"));
+		assertEquals("true", options.get("memetic", "false"));
+	}
+
+	@Test
+	public void parsesTheTypeOfTheDefault() {
+		Options options = new Options(new String[] { "--time=2.5", "--evaluations=5000000000", "--solver=tabu" });
+
+		assertEquals(2.5D, options.get("time", 60D), 0D);
+		assertEquals(5_000_000_000L, options.get("evaluations", 0L));
+		assertEquals("tabu", options.get("solver", "ga"));
+	}
+
+	@Test
+	public void fallsBackToTheDefault() {
+		Options options = new Options(new String[] {});
+
+		assertFalse(options.has("tile"));
+		assertEquals(4, options.get("overlap", 4));
+		assertEquals(7L, options.get("seed", 7L));
+		assertEquals(0.5D, options.get("rate", 0.5D), 0D);
+		assertEquals("ga", options.get("solver", "ga"));
+	}
+
+	/* Only the first equals sign separates the name from the value. */
+	@Test
+	public void keepsEqualsSignsInTheValue() {
+		assertEquals("a=b", new Options(new String[] { "--metrics=a=b" }).get("metrics", ""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void refusesAMissingPositionalArgument() {
+		new Options(new String[] { "in.bin", "--tile=32" }).get(1);
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void refusesANumberWhichDoesNotParse() {
+		new Options(new String[] { "--tile=wide" }).get("tile", 32);
+	}
+}
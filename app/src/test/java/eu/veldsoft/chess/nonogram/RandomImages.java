@@ -0,0 +1,36 @@
+package eu.veldsoft.chess.nonogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Random images for the equivalence tests. Rows have random lengths, so the tails of vector loops and of 64 bit words
+ * are reached, and some rows are all zero or all one.
+ */
+class RandomImages {
+	static int[][] ragged(Random random, int rows, int columns) {
+		int[][] image = new int[1 + random.nextInt(rows)][];
+		for (int i = 0; i < image.length; i++) {
+			image[i] = new int[1 + random.nextInt(columns)];
+
+			switch (random.nextInt(8)) {
+			case 0:
+				break;
+			case 1:
+				Arrays.fill(image[i], 1);
+				break;
+			default:
+				for (int j = 0; j < image[i].length; j++) {
+					image[i][j] = random.nextInt(3) == 0 ? 1 : 0;
+				}
+			}
+		}
+
+		return image;
+	}
+
+	static AttackTable table(int[][] image) {
+		App.steps(App.size(image));
+		return new AttackTable(image);
+	}
+}
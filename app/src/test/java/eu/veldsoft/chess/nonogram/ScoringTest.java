@@ -0,0 +1,41 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScoringTest {
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* The kernels against the per cell rules of App.score. */
+	@Test
+	public void kernelsFollowTheRulesOfScore() {
+		Random random = new Random(0L);
+		for (int t = 0; t < 300; t++) {
+			int[][] image = RandomImages.ragged(random, 40, 40);
+			AttackTable table = RandomImages.table(image);
+			byte[] genome = App.randomOnly(image, random.nextDouble() * 0.4D);
+			int[] counters = App.beaten(genome, table);
+
+			int expected = 0;
+			for (int k = 0; k < genome.length; k++) {
+				expected += App.score(App.CELLS[genome[k]], table.pixels[k], counters[k]);
+			}
+
+			assertEquals("Scalar kernel on image " + t + ".", expected,
+					Scoring.score(genome, table.pixels, counters, 0, genome.length));
+			if (VectorScoring.SUPPORTED == true) {
+				assertEquals("Vector kernel on image " + t + ".", expected,
+						VectorScoring.score(genome, table.pixels, counters, genome.length));
+			}
+			assertEquals("Fitness of image " + t + ".", expected, App.fitness(genome, table));
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package eu.veldsoft.chess.nonogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TiledSolverTest {
+	@Before
+	public void streams() {
+		RandomStreams.seed(0L);
+		RandomStreams.use(RandomStreams.split());
+	}
+
+	/* The repaired board over-attacks no zero pixel and scores the same over a precomputed table. */
+	@Test
+	public void leavesNoHarmfulPiece() {
+		Random random = new Random(0L);
+		Options options = new Options(new String[] { "in", "out", "--generations=2" });
+		ForkJoinPool pool = new ForkJoinPool(2);
+
+		for (int t = 0; t < 4; t++) {
+			int[][] image = RandomImages.ragged(random, 48, 48);
+			TiledSolver solver = new TiledSolver(image, 16, 2);
+			byte[] genome = solver.solve(options, pool);
+
+			AttackTable table = RandomImages.table(image);
+			Evaluator evaluator = new Evaluator(genome, table);
+			for (int k = 0; k < genome.length; k++) {
+				if (App.isPiece(genome[k]) == true) {
+					assertFalse("Image " + t + ", cell " + k + ".", App.harmful(k, evaluator, table));
+				}
+			}
+			assertEquals("Image " + t + ".", App.fitness(genome, table), solver.fitness());
+		}
+
+		pool.shutdown();
+	}
+}